@@ -1,36 +1,99 @@
 package dev.nxms.commandblocker;
 
 import com.github.retrooper.packetevents.PacketEvents;
+import dev.nxms.commandblocker.command.CommandBlockerAsyncTabCompleter;
+import dev.nxms.commandblocker.command.CommandBlockerBrigadier;
+import dev.nxms.commandblocker.command.CommandBlockerBukkitCommand;
 import dev.nxms.commandblocker.command.CommandBlockerCommand;
 import dev.nxms.commandblocker.command.CommandBlockerTabCompleter;
+import dev.nxms.commandblocker.jfr.RefreshBatchEvent;
+import dev.nxms.commandblocker.listener.CommandMapListener;
+import dev.nxms.commandblocker.listener.CommandSendListener;
+import dev.nxms.commandblocker.listener.FilterBudget;
+import dev.nxms.commandblocker.listener.FilterEngine;
+import dev.nxms.commandblocker.listener.FilteredTreeCache;
 import dev.nxms.commandblocker.listener.PacketListener;
+import dev.nxms.commandblocker.listener.PlayerListener;
 import dev.nxms.commandblocker.manager.BlockedCommandManager;
+import dev.nxms.commandblocker.manager.BypassManager;
+import dev.nxms.commandblocker.manager.CommandTreeTracker;
 import dev.nxms.commandblocker.manager.MessageManager;
-import org.bukkit.command.PluginCommand;
+import dev.nxms.commandblocker.manager.MetricsManager;
+import dev.nxms.commandblocker.manager.PlayerStateRegistry;
+import dev.nxms.commandblocker.manager.ScheduledBlockManager;
+import dev.nxms.commandblocker.sync.SyncManager;
+import dev.nxms.commandblocker.util.IoExecutor;
+import io.papermc.paper.plugin.lifecycle.event.types.LifecycleEvents;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Main plugin class for CommandBlocker.
  * Handles initialization and management of all plugin components.
  */
 public class CommandBlocker extends JavaPlugin {
 
+    private static final String COMMAND_LABEL = "commandblocker";
+    private static final List<String> COMMAND_ALIASES = List.of("cb");
+    private static final String COMMAND_DESCRIPTION = "Main command for CommandBlocker plugin";
+
     private static CommandBlocker instance;
+    private IoExecutor ioExecutor;
+    private volatile FileConfiguration config;
+    // Counts config saves, so a reload notices saves it may have missed
+    private final AtomicInteger configSaves = new AtomicInteger();
     private BlockedCommandManager blockedCommandManager;
+    private BypassManager bypassManager;
+    private PlayerStateRegistry playerStateRegistry;
+    private ScheduledBlockManager scheduledBlockManager;
     private MessageManager messageManager;
+    private CommandTreeTracker commandTreeTracker;
+    private MetricsManager metricsManager;
+    private SyncManager syncManager;
     private PacketListener packetListener;
+    private volatile FilterEngine filterEngine;
+    private volatile int maxCommandPacketBytes;
+    private volatile FilterBudget filterBudget;
+    private FilteredTreeCache filteredTreeCache;
+    private CommandBlockerTabCompleter tabCompleter;
 
     @Override
     public void onEnable() {
         instance = this;
+        ioExecutor = new IoExecutor(this);
 
         saveDefaultConfig();
+        loadSettings();
 
         messageManager = new MessageManager(this);
+        metricsManager = new MetricsManager();
+        playerStateRegistry = new PlayerStateRegistry();
+        commandTreeTracker = new CommandTreeTracker(playerStateRegistry);
         blockedCommandManager = new BlockedCommandManager(this);
+        bypassManager = new BypassManager(this);
+        filteredTreeCache = new FilteredTreeCache(64);
+        scheduledBlockManager = new ScheduledBlockManager(this);
+        scheduledBlockManager.start();
+
+        syncManager = SyncManager.fromConfig(this);
+        if (syncManager != null) {
+            syncManager.start();
+        }
 
         registerCommands();
+        registerListeners();
         registerPacketListener();
 
         getLogger().info("CommandBlocker has been enabled!");
@@ -39,19 +102,70 @@ public class CommandBlocker extends JavaPlugin {
     @Override
     public void onDisable() {
         unregisterPacketListener();
+        if (scheduledBlockManager != null) {
+            scheduledBlockManager.close();
+        }
+        if (syncManager != null) {
+            syncManager.close();
+        }
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
         getLogger().info("CommandBlocker has been disabled!");
     }
 
     /**
      * Registers plugin commands and tab completers.
+     * Uses Brigadier through the Paper lifecycle API unless "command-registration" is set to "bukkit".
+     * Only the Bukkit command completes through AsyncTabCompleteEvent, Brigadier uses its own suggestion providers.
      */
     private void registerCommands() {
-        PluginCommand command = getCommand("commandblocker");
-        if (command != null) {
-            command.setExecutor(new CommandBlockerCommand(this));
-            command.setTabCompleter(new CommandBlockerTabCompleter(this));
+        CommandBlockerCommand executor = new CommandBlockerCommand(this);
+        tabCompleter = new CommandBlockerTabCompleter(this);
+
+        String registration = getConfig().getString("command-registration", "brigadier").toLowerCase();
+        if (registration.equals("bukkit")) {
+            registerBukkitCommand(executor, tabCompleter);
+        } else {
+            registerBrigadierCommand(new CommandBlockerBrigadier(executor, tabCompleter));
+        }
+        getLogger().info("Commands has been registered (" + registration + ").");
+    }
+
+    /**
+     * Registers the command as a Brigadier tree through the Paper lifecycle API.
+     */
+    private void registerBrigadierCommand(CommandBlockerBrigadier brigadier) {
+        getLifecycleManager().registerEventHandler(LifecycleEvents.COMMANDS, event ->
+                event.registrar().register(brigadier.build(COMMAND_LABEL), COMMAND_DESCRIPTION, COMMAND_ALIASES));
+    }
+
+    /**
+     * Registers the command into the Bukkit command map, with completions served through AsyncTabCompleteEvent.
+     */
+    private void registerBukkitCommand(CommandBlockerCommand executor, CommandBlockerTabCompleter tabCompleter) {
+        getServer().getCommandMap().register(getName().toLowerCase(), new CommandBlockerBukkitCommand(
+                this, COMMAND_LABEL, COMMAND_DESCRIPTION, COMMAND_ALIASES, executor, tabCompleter));
+
+        // Labels the command can be typed as, including the namespaced forms
+        Set<String> labels = new HashSet<>();
+        labels.add(COMMAND_LABEL);
+        labels.addAll(COMMAND_ALIASES);
+        for (String label : Set.copyOf(labels)) {
+            labels.add(getName().toLowerCase() + ":" + label);
         }
-        getLogger().info("Commands has been registered.");
+
+        getServer().getPluginManager().registerEvents(new CommandBlockerAsyncTabCompleter(tabCompleter, labels), this);
+    }
+
+    /**
+     * Registers Bukkit event listeners.
+     */
+    private void registerListeners() {
+        getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
+        getServer().getPluginManager().registerEvents(new CommandSendListener(this), this);
+        getServer().getPluginManager().registerEvents(new CommandMapListener(this, tabCompleter), this);
+        getLogger().info("Event listeners has been registered.");
     }
 
     /**
@@ -74,21 +188,137 @@ public class CommandBlocker extends JavaPlugin {
 
     /**
      * Reloads all plugin configuration and managers.
+     * Files are read on the I/O executor and applied on the main thread.
+     * If the config was saved while the files were read, they are read again after that save.
      */
-    public void reload() {
-        reloadConfig();
-        messageManager.reload();
-        blockedCommandManager.reload();
-        updateCommandsForAllPlayers();
-        getLogger().info("CommandBlocker plugin has been reloaded.");
+    public CompletableFuture<Void> reload() {
+        int savesBefore = configSaves.get();
+        // Read after queued writes, so a save right before the reload is not read back stale
+        return ioExecutor.supplyAfterWrites(() -> {
+                    FileConfiguration loadedConfig = loadConfigFile();
+                    return new ReloadedFiles(loadedConfig,
+                            messageManager.readMessages(loadedConfig.getString("language", "en")));
+                })
+                .thenComposeAsync(files -> {
+                    if (configSaves.get() != savesBefore) {
+                        // The read may predate the save, applying it would drop e.g. a /cb add made meanwhile
+                        return reload();
+                    }
+
+                    config = files.config();
+                    messageManager.apply(files.messages());
+
+                    FilterEngine previousEngine = filterEngine;
+                    loadSettings();
+                    if (filterEngine != previousEngine) {
+                        // Trees were filtered by another engine, resend them to everyone
+                        blockedCommandManager.reload();
+                        updateCommandsForAllPlayers();
+                    } else {
+                        updateCommandsFor(blockedCommandManager.reload());
+                    }
+                    scheduledBlockManager.reload();
+                    getLogger().info("CommandBlocker plugin has been reloaded.");
+                    return CompletableFuture.<Void>completedFuture(null);
+                }, ioExecutor.mainThread());
+    }
+
+    /**
+     * Reads the filter engine, filter budget and packet limits from config.
+     */
+    private void loadSettings() {
+        filterEngine = FilterEngine.fromConfig(getConfig().getString("filter-engine", "packet"));
+        maxCommandPacketBytes = getConfig().getInt("max-command-packet-bytes", 8192);
+        filterBudget = FilterBudget.fromConfig(getConfig().getConfigurationSection("filter-budget"));
+        getLogger().info("Using " + filterEngine.name().toLowerCase() + " filter engine.");
+    }
+
+    @Override
+    public FileConfiguration getConfig() {
+        if (config == null) {
+            reloadConfig();
+        }
+        return config;
+    }
+
+    @Override
+    public void reloadConfig() {
+        config = loadConfigFile();
+    }
+
+    /**
+     * Saves the config on the I/O executor.
+     * The config is serialized on the calling thread, so later changes don't leak into the write.
+     */
+    @Override
+    public void saveConfig() {
+        configSaves.incrementAndGet();
+        ioExecutor.write(new File(getDataFolder(), "config.yml"), getConfig().saveToString());
+    }
+
+    /**
+     * Reads config.yml from disk with defaults from the JAR.
+     */
+    private FileConfiguration loadConfigFile() {
+        FileConfiguration loadedConfig = YamlConfiguration.loadConfiguration(new File(getDataFolder(), "config.yml"));
+
+        InputStream defaultStream = getResource("config.yml");
+        if (defaultStream != null) {
+            loadedConfig.setDefaults(YamlConfiguration.loadConfiguration(
+                    new InputStreamReader(defaultStream, StandardCharsets.UTF_8)
+            ));
+        }
+
+        return loadedConfig;
     }
 
     /**
      * Updates command list for all online players.
      */
     public void updateCommandsForAllPlayers() {
+        RefreshBatchEvent event = new RefreshBatchEvent();
+        event.begin();
+
+        int refreshed = 0;
         for (Player player : getServer().getOnlinePlayers()) {
             player.updateCommands();
+            refreshed++;
+        }
+
+        if (event.shouldCommit()) {
+            event.full = true;
+            event.playersChecked = refreshed;
+            event.playersRefreshed = refreshed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Updates command list only for players whose last command tree contained any of the given labels.
+     */
+    public void updateCommandsFor(Set<String> labels) {
+        if (labels.isEmpty()) {
+            return;
+        }
+
+        RefreshBatchEvent event = new RefreshBatchEvent();
+        event.begin();
+
+        int checked = 0;
+        int refreshed = 0;
+        for (Player player : getServer().getOnlinePlayers()) {
+            checked++;
+            if (commandTreeTracker.containsAny(player, labels)) {
+                player.updateCommands();
+                refreshed++;
+            }
+        }
+
+        if (event.shouldCommit()) {
+            event.changedLabels = labels.size();
+            event.playersChecked = checked;
+            event.playersRefreshed = refreshed;
+            event.commit();
         }
     }
 
@@ -100,7 +330,65 @@ public class CommandBlocker extends JavaPlugin {
         return blockedCommandManager;
     }
 
+    /**
+     * Returns the bypass manager, or null while the blocklist is loaded for the first time.
+     */
+    public BypassManager getBypassManager() {
+        return bypassManager;
+    }
+
     public MessageManager getMessageManager() {
         return messageManager;
     }
+
+    public ScheduledBlockManager getScheduledBlockManager() {
+        return scheduledBlockManager;
+    }
+
+    public PlayerStateRegistry getPlayerStateRegistry() {
+        return playerStateRegistry;
+    }
+
+    public CommandTreeTracker getCommandTreeTracker() {
+        return commandTreeTracker;
+    }
+
+    public FilterEngine getFilterEngine() {
+        return filterEngine;
+    }
+
+    /**
+     * Returns the maximum size of a command packet payload, 0 or less disables the limit.
+     */
+    public int getMaxCommandPacketBytes() {
+        return maxCommandPacketBytes;
+    }
+
+    public FilterBudget getFilterBudget() {
+        return filterBudget;
+    }
+
+    public FilteredTreeCache getFilteredTreeCache() {
+        return filteredTreeCache;
+    }
+
+    /**
+     * Returns the blocklist sync manager, or null if syncing is disabled.
+     */
+    public SyncManager getSyncManager() {
+        return syncManager;
+    }
+
+    public MetricsManager getMetricsManager() {
+        return metricsManager;
+    }
+
+    public IoExecutor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Config and messages read during a reload.
+     */
+    private record ReloadedFiles(FileConfiguration config, MessageManager.LoadedMessages messages) {}
 }
\ No newline at end of file
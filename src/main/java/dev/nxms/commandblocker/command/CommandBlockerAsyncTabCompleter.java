@@ -0,0 +1,55 @@
+package dev.nxms.commandblocker.command;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serves /commandblocker completions through Paper's AsyncTabCompleteEvent when the command is registered
+ * into the Bukkit command map.
+ * Completions come from immutable snapshots, so the main thread is only involved when they need a rebuild.
+ */
+public class CommandBlockerAsyncTabCompleter implements Listener {
+
+    private final CommandBlockerTabCompleter tabCompleter;
+    private final Set<String> labels;
+
+    public CommandBlockerAsyncTabCompleter(CommandBlockerTabCompleter tabCompleter, Set<String> labels) {
+        this.tabCompleter = tabCompleter;
+        this.labels = Set.copyOf(labels);
+    }
+
+    @EventHandler
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (event.isHandled() || !event.isCommand()) {
+            return;
+        }
+
+        String buffer = event.getBuffer();
+        String text = buffer.startsWith("/") ? buffer.substring(1) : buffer;
+
+        // Still typing the label itself, leave it to the server
+        int spaceIndex = text.indexOf(' ');
+        if (spaceIndex < 0) {
+            return;
+        }
+
+        if (!labels.contains(text.substring(0, spaceIndex).toLowerCase())) {
+            return;
+        }
+
+        String[] args = text.substring(spaceIndex + 1).split(" ", -1);
+        List<String> completions = tabCompleter.complete(event.getSender(), args);
+
+        // Nothing to offer, leave it to the synchronous completer so the client still gets a response
+        if (completions.isEmpty()) {
+            return;
+        }
+
+        event.setCompletions(completions);
+        event.setHandled(true);
+    }
+}
@@ -0,0 +1,128 @@
+package dev.nxms.commandblocker.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import io.papermc.paper.command.brigadier.CommandSourceStack;
+import io.papermc.paper.command.brigadier.Commands;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Brigadier command tree for /commandblocker.
+ * Subcommands are hidden client-side by permission and add/remove suggest from the completion snapshots.
+ * Execution is delegated to {@link CommandBlockerCommand}, so both registrations behave the same.
+ */
+public class CommandBlockerBrigadier {
+
+    private static final String ARGUMENT = "command";
+    private static final String SCHEDULE_ARGUMENT = "schedule";
+
+    private final CommandBlockerCommand executor;
+    private final CommandBlockerTabCompleter tabCompleter;
+
+    public CommandBlockerBrigadier(CommandBlockerCommand executor, CommandBlockerTabCompleter tabCompleter) {
+        this.executor = executor;
+        this.tabCompleter = tabCompleter;
+    }
+
+    /**
+     * Builds the command node for the given label.
+     */
+    public LiteralCommandNode<CommandSourceStack> build(String label) {
+        return Commands.literal(label)
+                .requires(source -> executor.hasBasePermission(source.getSender()))
+                .executes(this::run)
+                .then(subcommand("add", "commandblocker.add",
+                        commandArgument("add", tabCompleter::unblockedCommands).then(scheduleArgument())))
+                .then(subcommand("remove", "commandblocker.remove",
+                        commandArgument("remove", tabCompleter::blockedCommands)))
+                .then(subcommand("list", "commandblocker.list"))
+                .then(subcommand("reload", "commandblocker.reload"))
+                .then(subcommand("stats", "commandblocker.stats"))
+                .then(Commands.literal("help")
+                        .executes(context -> run(context, "help")))
+                .build();
+    }
+
+    /**
+     * Builds a subcommand without arguments.
+     */
+    private LiteralArgumentBuilder<CommandSourceStack> subcommand(String name, String permission) {
+        return Commands.literal(name)
+                .requires(source -> executor.hasPermission(source.getSender(), permission))
+                .executes(context -> run(context, name));
+    }
+
+    /**
+     * Builds a subcommand taking an argument.
+     * Without the argument the executor sends the usage message.
+     */
+    private LiteralArgumentBuilder<CommandSourceStack> subcommand(String name, String permission,
+                                                                  ArgumentBuilder<CommandSourceStack, ?> argument) {
+        return subcommand(name, permission).then(argument);
+    }
+
+    /**
+     * Builds a plugin:command argument with suggestions.
+     * The label is taken as typed, the executor validates it like for the command map registration.
+     */
+    private RequiredArgumentBuilder<CommandSourceStack, String> commandArgument(String name,
+                                                                             Function<String, List<String>> candidates) {
+        return Commands.argument(ARGUMENT, new CommandLabelArgument())
+                .suggests(suggestions(candidates))
+                .executes(context -> run(context, name, command(context)));
+    }
+
+    /**
+     * Builds the optional schedule of /commandblocker add, a duration (e.g. 2h) or a daily window (e.g. 18:00-20:00).
+     * A greedy string is used because word arguments do not accept ":". It is split, so extra words reach
+     * the executor as extra arguments and get the usage message instead of being dropped.
+     */
+    private RequiredArgumentBuilder<CommandSourceStack, String> scheduleArgument() {
+        return Commands.argument(SCHEDULE_ARGUMENT, StringArgumentType.greedyString())
+                .executes(context -> run(context, withSubcommand("add", command(context),
+                        StringArgumentType.getString(context, SCHEDULE_ARGUMENT).trim().split(" +"))));
+    }
+
+    private static String command(CommandContext<CommandSourceStack> context) {
+        return context.getArgument(ARGUMENT, String.class);
+    }
+
+    /**
+     * Prepends the subcommand name and command to the arguments, as the executor expects them.
+     */
+    private static String[] withSubcommand(String name, String command, String[] arguments) {
+        String[] args = new String[arguments.length + 2];
+        args[0] = name;
+        args[1] = command;
+        System.arraycopy(arguments, 0, args, 2, arguments.length);
+        return args;
+    }
+
+    /**
+     * Creates a suggestion provider backed by the given candidate lookup.
+     */
+    private SuggestionProvider<CommandSourceStack> suggestions(Function<String, List<String>> candidates) {
+        return (context, builder) -> {
+            for (String candidate : candidates.apply(builder.getRemainingLowerCase())) {
+                builder.suggest(candidate);
+            }
+            return builder.buildFuture();
+        };
+    }
+
+    /**
+     * Runs the shared executor with the given arguments.
+     */
+    private int run(CommandContext<CommandSourceStack> context, String... args) {
+        executor.execute(context.getSource().getSender(), args);
+        return Command.SINGLE_SUCCESS;
+    }
+}
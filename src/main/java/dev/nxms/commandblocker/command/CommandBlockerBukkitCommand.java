@@ -0,0 +1,47 @@
+package dev.nxms.commandblocker.command;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginIdentifiableCommand;
+import org.bukkit.plugin.Plugin;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Command map registration of /commandblocker.
+ * Used when "command-registration" is set to "bukkit" instead of Brigadier.
+ */
+public class CommandBlockerBukkitCommand extends Command implements PluginIdentifiableCommand {
+
+    private final CommandBlocker plugin;
+    private final CommandBlockerCommand executor;
+    private final CommandBlockerTabCompleter tabCompleter;
+
+    public CommandBlockerBukkitCommand(CommandBlocker plugin, String name, String description, List<String> aliases,
+                                       CommandBlockerCommand executor, CommandBlockerTabCompleter tabCompleter) {
+        super(name, description, "/<command> <add|remove|list|reload|stats|help>", aliases);
+        this.plugin = plugin;
+        this.executor = executor;
+        this.tabCompleter = tabCompleter;
+        setPermission("commandblocker.command");
+    }
+
+    @Override
+    public boolean execute(@NotNull CommandSender sender, @NotNull String commandLabel, @NotNull String[] args) {
+        executor.execute(sender, args);
+        return true;
+    }
+
+    @Override
+    public @NotNull List<String> tabComplete(@NotNull CommandSender sender, @NotNull String alias,
+                                             @NotNull String[] args) {
+        return tabCompleter.complete(sender, args);
+    }
+
+    @Override
+    public @NotNull Plugin getPlugin() {
+        return plugin;
+    }
+}
@@ -3,39 +3,45 @@ package dev.nxms.commandblocker.command;
 import dev.nxms.commandblocker.CommandBlocker;
 import dev.nxms.commandblocker.manager.BlockedCommandManager;
 import dev.nxms.commandblocker.manager.MessageManager;
-import org.bukkit.command.Command;
-import org.bukkit.command.CommandExecutor;
+import dev.nxms.commandblocker.manager.MetricsManager;
+import dev.nxms.commandblocker.manager.ScheduledBlockManager;
 import org.bukkit.command.CommandSender;
-import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Main command executor for /commandblocker.
- * Handles all subcommands: add, remove, list, reload, help.
+ * Handles all subcommands: add, remove, list, reload, stats, help.
  */
-public class CommandBlockerCommand implements CommandExecutor {
+public class CommandBlockerCommand {
 
     private final CommandBlocker plugin;
     private final MessageManager messages;
     private final BlockedCommandManager blockedManager;
+    private final ScheduledBlockManager scheduledManager;
 
     public CommandBlockerCommand(CommandBlocker plugin) {
         this.plugin = plugin;
         this.messages = plugin.getMessageManager();
         this.blockedManager = plugin.getBlockedCommandManager();
+        this.scheduledManager = plugin.getScheduledBlockManager();
     }
 
-    @Override
-    public boolean onCommand(@NotNull CommandSender sender, @NotNull Command command,
-                             @NotNull String label, @NotNull String[] args) {
-
+    /**
+     * Executes the command with already split arguments.
+     * Shared by the command map and Brigadier registrations.
+     */
+    void execute(CommandSender sender, String[] args) {
         if (!hasBasePermission(sender)) {
             messages.send(sender, "no-permission");
-            return true;
+            return;
         }
 
         if (args.length == 0) {
             handleHelp(sender);
-            return true;
+            return;
         }
 
         switch (args[0].toLowerCase()) {
@@ -43,11 +49,10 @@ public class CommandBlockerCommand implements CommandExecutor {
             case "remove" -> handleRemove(sender, args);
             case "list" -> handleList(sender);
             case "reload" -> handleReload(sender);
+            case "stats" -> handleStats(sender);
             case "help" -> handleHelp(sender);
             default -> messages.send(sender, "unknown-subcommand");
         }
-
-        return true;
     }
 
     /**
@@ -72,6 +77,17 @@ public class CommandBlockerCommand implements CommandExecutor {
             return;
         }
 
+        // A schedule is a single argument, e.g. "1h30m" rather than "1h 30m"
+        if (args.length > 3) {
+            messages.send(sender, "add.usage");
+            return;
+        }
+
+        if (args.length == 3) {
+            handleScheduledAdd(sender, cmd, args[2]);
+            return;
+        }
+
         if (blockedManager.add(cmd)) {
             messages.send(sender, "add.success", "%command%", cmd);
         } else {
@@ -79,6 +95,33 @@ public class CommandBlockerCommand implements CommandExecutor {
         }
     }
 
+    /**
+     * Adds a temporary (e.g. 2h) or daily (e.g. 18:00-20:00) block.
+     */
+    private void handleScheduledAdd(CommandSender sender, String cmd, String schedule) {
+        if (blockedManager.isPermanentlyBlocked(cmd)) {
+            messages.send(sender, "add.already-blocked", "%command%", cmd);
+            return;
+        }
+
+        ScheduledBlockManager.Rule rule = scheduledManager.add(cmd, schedule);
+        if (rule == null) {
+            messages.send(sender, "add.invalid-schedule");
+            return;
+        }
+
+        sendScheduled(sender, "add.scheduled", cmd, rule);
+    }
+
+    /**
+     * Sends a message about a scheduled block, with %command% and %schedule% replaced.
+     */
+    private void sendScheduled(CommandSender sender, String path, String cmd, ScheduledBlockManager.Rule rule) {
+        sender.sendMessage(messages.get(sender, path)
+                .replace("%command%", cmd)
+                .replace("%schedule%", scheduledManager.describe(rule)));
+    }
+
     /**
      * Handles the remove subcommand.
      */
@@ -101,7 +144,8 @@ public class CommandBlockerCommand implements CommandExecutor {
             return;
         }
 
-        if (blockedManager.remove(cmd)) {
+        // Non-short-circuit, a command can be blocked both permanently and by a schedule
+        if (blockedManager.remove(cmd) | scheduledManager.remove(cmd)) {
             messages.send(sender, "remove.success", "%command%", cmd);
         } else {
             messages.send(sender, "remove.not-found", "%command%", cmd);
@@ -119,11 +163,20 @@ public class CommandBlockerCommand implements CommandExecutor {
 
         messages.send(sender, "list.header");
 
-        if (blockedManager.isEmpty()) {
+        Map<String, ScheduledBlockManager.Rule> rules = scheduledManager.getRules();
+        Set<String> commands = new TreeSet<>(blockedManager.getBlockedCommands());
+        commands.addAll(rules.keySet());
+
+        if (commands.isEmpty()) {
             messages.send(sender, "list.empty");
         } else {
-            for (String cmd : blockedManager.getBlockedCommands().stream().sorted().toList()) {
-                messages.send(sender, "list.entry", "%command%", cmd);
+            for (String cmd : commands) {
+                ScheduledBlockManager.Rule rule = rules.get(cmd);
+                if (rule == null || blockedManager.isPermanentlyBlocked(cmd)) {
+                    messages.send(sender, "list.entry", "%command%", cmd);
+                } else {
+                    sendScheduled(sender, "list.scheduled-entry", cmd, rule);
+                }
             }
         }
 
@@ -139,8 +192,35 @@ public class CommandBlockerCommand implements CommandExecutor {
             return;
         }
 
-        plugin.reload();
-        messages.send(sender, "reload.success");
+        plugin.reload().whenCompleteAsync((result, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("Failed to reload configuration: " + error.getMessage());
+                messages.send(sender, "reload.failed");
+                return;
+            }
+            messages.send(sender, "reload.success");
+        }, plugin.getIoExecutor().mainThread());
+    }
+
+    /**
+     * Handles the stats subcommand.
+     */
+    private void handleStats(CommandSender sender) {
+        if (!hasPermission(sender, "commandblocker.stats")) {
+            messages.send(sender, "no-permission");
+            return;
+        }
+
+        messages.send(sender, "stats.header");
+
+        String entryMessage = messages.get(sender, "stats.entry");
+        for (Map.Entry<MetricsManager.Metric, Long> entry : plugin.getMetricsManager().snapshot().entrySet()) {
+            sender.sendMessage(entryMessage
+                    .replace("%metric%", entry.getKey().getKey())
+                    .replace("%value%", String.valueOf(entry.getValue())));
+        }
+
+        messages.send(sender, "stats.footer");
     }
 
     /**
@@ -161,6 +241,9 @@ public class CommandBlockerCommand implements CommandExecutor {
         if (hasPermission(sender, "commandblocker.reload")) {
             messages.send(sender, "help.reload");
         }
+        if (hasPermission(sender, "commandblocker.stats")) {
+            messages.send(sender, "help.stats");
+        }
         messages.send(sender, "help.help");
 
         messages.send(sender, "help.footer");
@@ -183,14 +266,14 @@ public class CommandBlockerCommand implements CommandExecutor {
     /**
      * Checks if sender has base permission to use the command.
      */
-    private boolean hasBasePermission(CommandSender sender) {
+    boolean hasBasePermission(CommandSender sender) {
         return sender.hasPermission("commandblocker.command") || sender.hasPermission("commandblocker.admin");
     }
 
     /**
      * Checks if sender has specific permission or admin permission.
      */
-    private boolean hasPermission(CommandSender sender, String permission) {
+    boolean hasPermission(CommandSender sender, String permission) {
         return sender.hasPermission(permission) || sender.hasPermission("commandblocker.admin");
     }
 }
\ No newline at end of file
@@ -1,17 +1,14 @@
 package dev.nxms.commandblocker.command;
 
 import dev.nxms.commandblocker.CommandBlocker;
-import dev.nxms.commandblocker.manager.BlockedCommandManager;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
-import org.bukkit.command.PluginCommand;
 import org.bukkit.command.TabCompleter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -20,18 +17,51 @@ import java.util.stream.Collectors;
  */
 public class CommandBlockerTabCompleter implements TabCompleter {
 
-    private final CommandBlocker plugin;
-    private final BlockedCommandManager blockedManager;
+    private final CompletionIndex completionIndex;
 
     public CommandBlockerTabCompleter(CommandBlocker plugin) {
-        this.plugin = plugin;
-        this.blockedManager = plugin.getBlockedCommandManager();
+        this.completionIndex = new CompletionIndex(plugin);
     }
 
     @Override
     public @Nullable List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command,
                                                 @NotNull String alias, @NotNull String[] args) {
+        return complete(sender, args);
+    }
+
+    /**
+     * Returns server commands that are NOT blocked and start with the given prefix.
+     */
+    List<String> unblockedCommands(String prefix) {
+        return completionIndex.unblocked(prefix);
+    }
+
+    /**
+     * Returns blocked commands that start with the given prefix.
+     */
+    List<String> blockedCommands(String prefix) {
+        return completionIndex.blocked(prefix);
+    }
+
+    /**
+     * Forces the completion candidates to be rebuilt after the command map changed.
+     */
+    public void invalidate() {
+        completionIndex.invalidate();
+    }
+
+    /**
+     * Rebuilds the completion candidates ahead of the first completion, must be called on the main thread.
+     */
+    public void prebuild() {
+        completionIndex.rebuild();
+    }
 
+    /**
+     * Computes completions for the given arguments.
+     * Safe to call from async completion threads.
+     */
+    List<String> complete(CommandSender sender, String[] args) {
         if (!hasBasePermission(sender)) {
             return List.of();
         }
@@ -45,12 +75,12 @@ public class CommandBlockerTabCompleter implements TabCompleter {
 
             if (subcommand.equals("add") && hasPermission(sender, "commandblocker.add")) {
                 // Show only commands that are NOT blocked
-                return filterStartsWith(getUnblockedCommands(), args[1]);
+                return completionIndex.unblocked(args[1]);
             }
 
             if (subcommand.equals("remove") && hasPermission(sender, "commandblocker.remove")) {
                 // Show only commands that ARE blocked
-                return filterStartsWith(getBlockedCommands(), args[1]);
+                return completionIndex.blocked(args[1]);
             }
         }
 
@@ -75,44 +105,14 @@ public class CommandBlockerTabCompleter implements TabCompleter {
         if (hasPermission(sender, "commandblocker.reload")) {
             subcommands.add("reload");
         }
+        if (hasPermission(sender, "commandblocker.stats")) {
+            subcommands.add("stats");
+        }
         subcommands.add("help");
 
         return subcommands;
     }
 
-    /**
-     * Gets all server commands that are NOT blocked.
-     */
-    private List<String> getUnblockedCommands() {
-        Set<String> blocked = blockedManager.getBlockedCommands();
-
-        return plugin.getServer().getCommandMap().getKnownCommands().entrySet().stream()
-                .map(entry -> {
-                    String name = entry.getKey();
-                    if (!name.contains(":")) {
-                        org.bukkit.command.Command cmd = entry.getValue();
-                        if (cmd instanceof PluginCommand pluginCmd) {
-                            return pluginCmd.getPlugin().getName().toLowerCase() + ":" + name;
-                        }
-                        return "minecraft:" + name;
-                    }
-                    return name;
-                })
-                .filter(cmd -> !blocked.contains(cmd.toLowerCase()))
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-    }
-
-    /**
-     * Gets all blocked commands.
-     */
-    private List<String> getBlockedCommands() {
-        return blockedManager.getBlockedCommands().stream()
-                .sorted()
-                .collect(Collectors.toList());
-    }
-
     /**
      * Filters list to only include entries starting with given prefix.
      */
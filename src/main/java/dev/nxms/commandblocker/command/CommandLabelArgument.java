@@ -0,0 +1,33 @@
+package dev.nxms.commandblocker.command;
+
+import com.mojang.brigadier.StringReader;
+import com.mojang.brigadier.arguments.ArgumentType;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import io.papermc.paper.command.brigadier.argument.ArgumentTypes;
+import io.papermc.paper.command.brigadier.argument.CustomArgumentType;
+import net.kyori.adventure.key.Key;
+
+/**
+ * Brigadier argument for a command label such as "essentials:tpa", read up to the next space.
+ * Accepts any label of the command map (e.g. "bukkit:?"), validation is left to {@link CommandBlockerCommand},
+ * so both registrations accept the same input. Clients see it as a resource location.
+ */
+class CommandLabelArgument implements CustomArgumentType<String, Key> {
+
+    @Override
+    public String parse(StringReader reader) throws CommandSyntaxException {
+        int start = reader.getCursor();
+        while (reader.canRead() && reader.peek() != ' ') {
+            reader.skip();
+        }
+        if (reader.getCursor() == start) {
+            throw CommandSyntaxException.BUILT_IN_EXCEPTIONS.dispatcherUnknownArgument().createWithContext(reader);
+        }
+        return reader.getString().substring(start, reader.getCursor());
+    }
+
+    @Override
+    public ArgumentType<Key> getNativeType() {
+        return ArgumentTypes.key();
+    }
+}
@@ -0,0 +1,164 @@
+package dev.nxms.commandblocker.command;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.manager.BlockedCommandManager;
+import org.bukkit.command.Command;
+import org.bukkit.command.PluginIdentifiableCommand;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sorted, prefix-searchable candidates for /commandblocker add and remove.
+ * Rebuilt only when the command map or the blocklist changes, so a completion is a binary-search range lookup.
+ * Snapshots are immutable, so async completion threads can read them while the main thread rebuilds.
+ */
+class CompletionIndex {
+
+    private final CommandBlocker plugin;
+    private final BlockedCommandManager blockedManager;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private volatile boolean commandMapChanged;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new String[0], -1, -1);
+
+    CompletionIndex(CommandBlocker plugin) {
+        this.plugin = plugin;
+        this.blockedManager = plugin.getBlockedCommandManager();
+    }
+
+    /**
+     * Returns server commands that are NOT blocked and start with the given prefix.
+     */
+    List<String> unblocked(String prefix) {
+        return range(current().unblocked, prefix);
+    }
+
+    /**
+     * Returns blocked commands that start with the given prefix.
+     */
+    List<String> blocked(String prefix) {
+        return range(current().blocked, prefix);
+    }
+
+    /**
+     * Marks the command map as changed, so the next completion rebuilds the snapshot.
+     */
+    void invalidate() {
+        commandMapChanged = true;
+    }
+
+    /**
+     * Rebuilds the snapshot right away, must be called on the main thread.
+     */
+    void rebuild() {
+        commandMapChanged = true;
+        current();
+    }
+
+    /**
+     * Returns the current snapshot, rebuilding it if the command map or blocklist changed.
+     * Off the main thread the last snapshot is served and the rebuild is handed to the main thread.
+     */
+    private Snapshot current() {
+        if (!plugin.getServer().isPrimaryThread()) {
+            Snapshot current = snapshot;
+            boolean stale = commandMapChanged || current.blocklistVersion != blockedManager.getVersion();
+            if (stale && rebuildScheduled.compareAndSet(false, true)) {
+                plugin.getServer().getScheduler().runTask(plugin, () -> {
+                    rebuildScheduled.set(false);
+                    current();
+                });
+            }
+            return current;
+        }
+
+        Snapshot current = snapshot;
+        if (isStale(current)) {
+            commandMapChanged = false;
+            current = build(plugin.getServer().getCommandMap().getKnownCommands(), blockedManager.getVersion());
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Checks if a snapshot was built from an older command map or blocklist.
+     */
+    private boolean isStale(Snapshot current) {
+        return commandMapChanged
+                || current.blocklistVersion != blockedManager.getVersion()
+                || current.commandCount != plugin.getServer().getCommandMap().getKnownCommands().size();
+    }
+
+    /**
+     * Builds sorted candidate arrays from the command map and blocklist.
+     */
+    private Snapshot build(Map<String, Command> knownCommands, int blocklistVersion) {
+        Set<String> blockedCommands = new TreeSet<>(blockedManager.getBlockedCommands());
+        Set<String> unblockedCommands = new TreeSet<>();
+
+        for (Map.Entry<String, Command> entry : knownCommands.entrySet()) {
+            String name = entry.getKey().toLowerCase();
+            if (!name.contains(":")) {
+                if (entry.getValue() instanceof PluginIdentifiableCommand pluginCmd) {
+                    name = pluginCmd.getPlugin().getName().toLowerCase() + ":" + name;
+                } else {
+                    name = "minecraft:" + name;
+                }
+            }
+
+            if (!blockedCommands.contains(name)) {
+                unblockedCommands.add(name);
+            }
+        }
+
+        return new Snapshot(
+                unblockedCommands.toArray(new String[0]),
+                blockedCommands.toArray(new String[0]),
+                blocklistVersion,
+                knownCommands.size()
+        );
+    }
+
+    /**
+     * Returns all entries of a sorted array starting with the given prefix.
+     */
+    private static List<String> range(String[] sorted, String prefix) {
+        String lowerPrefix = prefix.toLowerCase();
+        int from = lowerBound(sorted, lowerPrefix);
+        int to = from;
+        while (to < sorted.length && sorted[to].startsWith(lowerPrefix)) {
+            to++;
+        }
+        return new ArrayList<>(Arrays.asList(sorted).subList(from, to));
+    }
+
+    /**
+     * Finds the index of the first entry not smaller than the key.
+     */
+    private static int lowerBound(String[] sorted, String key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Immutable candidate arrays with the state they were built from.
+     */
+    private record Snapshot(String[] unblocked, String[] blocked, int blocklistVersion, int commandCount) {}
+}
@@ -0,0 +1,29 @@
+package dev.nxms.commandblocker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a rejected command or suggestion packet.
+ */
+@Name("dev.nxms.commandblocker.BlockedCommand")
+@Label("Blocked Command")
+@Description("A command or suggestion request rejected by CommandBlocker")
+@Category("CommandBlocker")
+@StackTrace(false)
+public class BlockedCommandEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Command")
+    public String command;
+
+    @Label("Reason")
+    @Description("blocked, early-blocked, oversize or suggestion")
+    public String reason;
+}
@@ -0,0 +1,30 @@
+package dev.nxms.commandblocker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one plugin file write.
+ */
+@Name("dev.nxms.commandblocker.ConfigPersist")
+@Label("Config Persist")
+@Description("A plugin file written on the I/O executor")
+@Category("CommandBlocker")
+@StackTrace(false)
+public class ConfigPersistEvent extends Event {
+
+    @Label("File")
+    public String file;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Append")
+    public boolean append;
+}
@@ -0,0 +1,35 @@
+package dev.nxms.commandblocker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one command tree filter run.
+ * For the packet engine counts are tree nodes, for the event engine they are root labels.
+ */
+@Name("dev.nxms.commandblocker.FilterCommands")
+@Label("Filter Commands")
+@Description("Removal of blocked commands from the command tree sent to a player")
+@Category("CommandBlocker")
+@StackTrace(false)
+public class FilterCommandsEvent extends Event {
+
+    @Label("Player")
+    public String player;
+
+    @Label("Engine")
+    public String engine;
+
+    @Label("Nodes In")
+    public int nodesIn;
+
+    @Label("Nodes Out")
+    public int nodesOut;
+
+    @Label("Changed")
+    public boolean changed;
+}
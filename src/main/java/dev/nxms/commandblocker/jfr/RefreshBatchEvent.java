@@ -0,0 +1,32 @@
+package dev.nxms.commandblocker.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for one command tree refresh of online players.
+ */
+@Name("dev.nxms.commandblocker.RefreshBatch")
+@Label("Refresh Batch")
+@Description("Command tree resend after a blocklist change")
+@Category("CommandBlocker")
+@StackTrace(false)
+public class RefreshBatchEvent extends Event {
+
+    @Label("Full")
+    @Description("Whether all players were refreshed regardless of their last tree")
+    public boolean full;
+
+    @Label("Changed Labels")
+    public int changedLabels;
+
+    @Label("Players Checked")
+    public int playersChecked;
+
+    @Label("Players Refreshed")
+    public int playersRefreshed;
+}
@@ -0,0 +1,96 @@
+package dev.nxms.commandblocker.listener;
+
+import com.github.retrooper.packetevents.protocol.chat.Node;
+import dev.nxms.commandblocker.manager.BypassManager;
+import dev.nxms.commandblocker.manager.MetricsManager;
+
+import java.util.List;
+import java.util.function.BiPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Filters command trees within the configured size and time budget.
+ * Trees filtered before for the current blocklist are served from the shared cache.
+ * Trees over budget and failed runs fall back to pruning only the root.
+ * While the circuit breaker is open the full filter is skipped.
+ * Depends only on its suppliers, so the load-test harness drives the same code as the packet listener.
+ */
+public class BudgetedTreeFilter {
+
+    private final BiPredicate<String, BypassManager.Exceptions> isBlocked;
+    private final IntSupplier blocklistVersion;
+    private final Supplier<FilterBudget> budget;
+    private final FilteredTreeCache treeCache;
+    private final MetricsManager metrics;
+    private final Logger logger;
+    private final CommandTreeFilter treeFilter;
+
+    /**
+     * Creates the filter. The blocked predicate gets null exceptions for players without any.
+     */
+    public BudgetedTreeFilter(BiPredicate<String, BypassManager.Exceptions> isBlocked, IntSupplier blocklistVersion,
+                              Supplier<FilterBudget> budget, FilteredTreeCache treeCache, MetricsManager metrics,
+                              Logger logger) {
+        this.isBlocked = isBlocked;
+        this.blocklistVersion = blocklistVersion;
+        this.budget = budget;
+        this.treeCache = treeCache;
+        this.metrics = metrics;
+        this.logger = logger;
+        this.treeFilter = new CommandTreeFilter(label -> isBlocked.test(label, null));
+    }
+
+    /**
+     * Filters a tree for a player with the given bypass exceptions, which may be null.
+     * Players with bypass exceptions get their own cache entries, shared by players with the same exceptions.
+     */
+    public CommandTreeFilter.Result filter(List<Node> nodes, int rootIndex, BypassManager.Exceptions exceptions) {
+        FilterBudget currentBudget = budget.get();
+        int version = blocklistVersion.getAsInt();
+        long fingerprint = CommandTreeFilter.fingerprint(nodes, rootIndex);
+
+        boolean excepting = exceptions != null && !exceptions.isEmpty();
+        CommandTreeFilter playerFilter = excepting
+                ? new CommandTreeFilter(label -> isBlocked.test(label, exceptions))
+                : treeFilter;
+        long[] exceptionWords = excepting ? exceptions.words() : null;
+        if (excepting) {
+            fingerprint ^= exceptions.entriesHash() * 0x9E3779B97F4A7C15L;
+        }
+
+        CommandTreeFilter.Result cached = treeCache.get(fingerprint, nodes, rootIndex, version, exceptionWords);
+        if (cached != null) {
+            metrics.increment(MetricsManager.Metric.FILTER_CACHE_HITS);
+            return cached;
+        }
+
+        if (!currentBudget.fits(nodes.size())) {
+            metrics.increment(MetricsManager.Metric.FILTER_BUDGET_TRIPS);
+        } else if (!currentBudget.isOpen()) {
+            CommandTreeFilter.Result result = null;
+            try {
+                result = treeCache.filterOnce(fingerprint, nodes, rootIndex, version, exceptionWords,
+                        currentBudget.getMaxNanos(),
+                        () -> playerFilter.filter(nodes, rootIndex, currentBudget.getMaxNanos()));
+            } catch (RuntimeException e) {
+                logger.warning("Failed to filter command tree, falling back: " + e.getMessage());
+            }
+
+            if (result != null) {
+                currentBudget.recordSuccess();
+                return result;
+            }
+
+            metrics.increment(MetricsManager.Metric.FILTER_BUDGET_TRIPS);
+            if (currentBudget.recordTrip()) {
+                metrics.increment(MetricsManager.Metric.FILTER_BREAKER_OPENS);
+                logger.warning("Command tree filter is over budget, using fallback filtering for a while.");
+            }
+        }
+
+        metrics.increment(MetricsManager.Metric.FILTER_FALLBACKS);
+        return playerFilter.pruneRoot(nodes, rootIndex);
+    }
+}
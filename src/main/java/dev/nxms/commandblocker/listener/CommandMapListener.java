@@ -0,0 +1,69 @@
+package dev.nxms.commandblocker.listener;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.command.CommandBlockerTabCompleter;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.server.ServerLoadEvent;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pre-builds the /commandblocker completion candidates when the command map changes.
+ * Runs when the server has loaded and after plugins (un)load, so the first completion does not pay for the build.
+ * Command trees themselves are filtered on demand, once per distinct tree through the shared {@link FilteredTreeCache}.
+ */
+public class CommandMapListener implements Listener {
+
+    // Many plugins enable in a row at startup, rebuild once they are done
+    private static final long DEBOUNCE_TICKS = 20L;
+
+    private final CommandBlocker plugin;
+    private final CommandBlockerTabCompleter tabCompleter;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public CommandMapListener(CommandBlocker plugin, CommandBlockerTabCompleter tabCompleter) {
+        this.plugin = plugin;
+        this.tabCompleter = tabCompleter;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerLoad(ServerLoadEvent event) {
+        rebuild();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {
+        tabCompleter.invalidate();
+        schedule();
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        tabCompleter.invalidate();
+        schedule();
+    }
+
+    /**
+     * Schedules a rebuild, repeated calls within the debounce delay are merged.
+     */
+    public void schedule() {
+        if (!plugin.isEnabled() || !scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
+            scheduled.set(false);
+            rebuild();
+        }, DEBOUNCE_TICKS);
+    }
+
+    /**
+     * Rebuilds the completion candidates, must be called on the main thread.
+     */
+    public void rebuild() {
+        tabCompleter.prebuild();
+    }
+}
@@ -0,0 +1,68 @@
+package dev.nxms.commandblocker.listener;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.jfr.FilterCommandsEvent;
+import dev.nxms.commandblocker.manager.BlockedCommandManager;
+import dev.nxms.commandblocker.manager.BypassManager;
+import dev.nxms.commandblocker.manager.CommandTreeTracker;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+
+/**
+ * Hides blocked commands before the command tree is serialized.
+ * Active when the filter engine is "event" or "hybrid".
+ */
+public class CommandSendListener implements Listener {
+
+    private final CommandBlocker plugin;
+    private final BlockedCommandManager blockedManager;
+    private final CommandTreeTracker treeTracker;
+    private final BypassManager bypassManager;
+
+    public CommandSendListener(CommandBlocker plugin) {
+        this.plugin = plugin;
+        this.blockedManager = plugin.getBlockedCommandManager();
+        this.treeTracker = plugin.getCommandTreeTracker();
+        this.bypassManager = plugin.getBypassManager();
+    }
+
+    /**
+     * Removes blocked root labels from the commands sent to a player.
+     * Runs late, so labels added by other plugins are filtered too.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPlayerCommandSend(PlayerCommandSendEvent event) {
+        if (!plugin.getFilterEngine().filtersEvents()) {
+            return;
+        }
+
+        Player player = event.getPlayer();
+        BypassManager.Exceptions exceptions = bypassManager.get(player);
+        if (bypassManager.bypassesAll(player, exceptions)) {
+            // Blocklist changes never affect the tree of bypassing players
+            treeTracker.forget(player);
+            return;
+        }
+
+        // Record the unfiltered root labels, so both blocking and unblocking can find affected players
+        treeTracker.record(player, event.getCommands());
+
+        FilterCommandsEvent filterEvent = new FilterCommandsEvent();
+        filterEvent.begin();
+        int labelsIn = event.getCommands().size();
+
+        boolean changed = event.getCommands().removeIf(label -> blockedManager.isBlocked(label, exceptions));
+
+        if (filterEvent.shouldCommit()) {
+            filterEvent.player = player.getName();
+            filterEvent.engine = "event";
+            filterEvent.nodesIn = labelsIn;
+            filterEvent.nodesOut = event.getCommands().size();
+            filterEvent.changed = changed;
+            filterEvent.commit();
+        }
+    }
+}
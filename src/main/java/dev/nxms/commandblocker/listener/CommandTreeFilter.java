@@ -0,0 +1,250 @@
+package dev.nxms.commandblocker.listener;
+
+import com.github.retrooper.packetevents.protocol.chat.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Predicate;
+
+/**
+ * Removes blocked root commands from a DECLARE_COMMANDS node list.
+ * Depends only on the node list and a label predicate, so it can be driven without a server.
+ */
+public class CommandTreeFilter {
+
+    private final Predicate<String> isBlocked;
+
+    public CommandTreeFilter(Predicate<String> isBlocked) {
+        this.isBlocked = isBlocked;
+    }
+
+    /**
+     * Filters command nodes, removing blocked commands.
+     * Trees without blocked root commands are returned as they are, without copying.
+     */
+    public Result filter(List<Node> originalNodes, int originalRootIndex) {
+        return filter(originalNodes, originalRootIndex, Long.MAX_VALUE);
+    }
+
+    /**
+     * Filters command nodes, giving up once filtering took longer than the budget.
+     * Returns null if the budget was exceeded, the caller then has to fall back to a cheaper result.
+     */
+    public Result filter(List<Node> originalNodes, int originalRootIndex, long budgetNanos) {
+        long start = System.nanoTime();
+        int nodeCount = originalNodes.size();
+        boolean[] removed = new boolean[nodeCount];
+        boolean anyRemoved = false;
+
+        for (int childIndex : originalNodes.get(originalRootIndex).getChildren()) {
+            if (childIndex >= 0 && childIndex < nodeCount && isBlockedLiteral(originalNodes.get(childIndex))) {
+                removed[childIndex] = true;
+                anyRemoved = true;
+            }
+        }
+
+        if (!anyRemoved) {
+            return new Result(originalNodes, originalRootIndex, false);
+        }
+
+        // Old index -> new index, -1 for removed nodes
+        int[] indexMapping = new int[nodeCount];
+        int newCount = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            indexMapping[i] = removed[i] ? -1 : newCount++;
+        }
+
+        List<Node> updatedNodes = new ArrayList<>(newCount);
+        for (int i = 0; i < nodeCount; i++) {
+            if (removed[i]) {
+                continue;
+            }
+            // Checking the clock for every node would cost more than copying it
+            if ((i & 255) == 0 && System.nanoTime() - start > budgetNanos) {
+                return null;
+            }
+
+            Node node = originalNodes.get(i);
+            List<Integer> children = node.getChildren();
+            List<Integer> remappedChildren = new ArrayList<>(children.size());
+            for (int oldChild : children) {
+                int mapped = mapIndex(indexMapping, oldChild);
+                if (mapped >= 0) {
+                    remappedChildren.add(mapped);
+                }
+            }
+
+            byte newFlags = node.getFlags();
+            int newRedirectIndex = node.getRedirectNodeIndex();
+
+            boolean hasRedirect = (newFlags & Node.FLAG_REDIRECT) == Node.FLAG_REDIRECT;
+            if (hasRedirect) {
+                int mappedRedirect = mapIndex(indexMapping, node.getRedirectNodeIndex());
+                if (mappedRedirect >= 0) {
+                    newRedirectIndex = mappedRedirect;
+                } else {
+                    newFlags = (byte) (newFlags & ~Node.FLAG_REDIRECT);
+                    newRedirectIndex = 0;
+                }
+            }
+
+            updatedNodes.add(new Node(
+                    newFlags,
+                    remappedChildren,
+                    newRedirectIndex,
+                    node.getName().orElse(null),
+                    node.getParser().orElse(null),
+                    node.getProperties().orElse(null),
+                    node.getSuggestionsType().orElse(null)
+            ));
+        }
+
+        return new Result(updatedNodes, Math.max(mapIndex(indexMapping, originalRootIndex), 0), true);
+    }
+
+    /**
+     * Cheap fallback for trees that are too large or too slow to filter fully.
+     * Blocked root literals are replaced in place by empty literals, so no index changes and only
+     * the root and the replaced nodes are allocated. Their subtrees stay in the packet, unreachable.
+     */
+    public Result pruneRoot(List<Node> originalNodes, int originalRootIndex) {
+        int nodeCount = originalNodes.size();
+        Node root = originalNodes.get(originalRootIndex);
+        List<Integer> children = root.getChildren();
+
+        List<Node> prunedNodes = null;
+        List<Integer> keptChildren = new ArrayList<>(children.size());
+        for (int childIndex : children) {
+            if (childIndex >= 0 && childIndex < nodeCount && isBlockedLiteral(originalNodes.get(childIndex))) {
+                if (prunedNodes == null) {
+                    prunedNodes = new ArrayList<>(originalNodes);
+                }
+                // Other nodes may still point here, so keep a harmless node instead of the blocked one
+                prunedNodes.set(childIndex, new Node(Node.TYPE_LITERAL, new ArrayList<>(), 0, "", null, null, null));
+            } else {
+                keptChildren.add(childIndex);
+            }
+        }
+
+        if (prunedNodes == null) {
+            return new Result(originalNodes, originalRootIndex, false);
+        }
+
+        prunedNodes.set(originalRootIndex, new Node(
+                root.getFlags(),
+                keptChildren,
+                root.getRedirectNodeIndex(),
+                root.getName().orElse(null),
+                root.getParser().orElse(null),
+                root.getProperties().orElse(null),
+                root.getSuggestionsType().orElse(null)
+        ));
+        return new Result(prunedNodes, originalRootIndex, true);
+    }
+
+    /**
+     * Computes a 64-bit fingerprint of a command tree, equal trees get equal fingerprints.
+     * Covers everything that is written back to the client, names and child indices are hashed in full
+     * rather than through their 32-bit hash codes.
+     */
+    public static long fingerprint(List<Node> nodes, int rootIndex) {
+        long hash = 0xcbf29ce484222325L ^ rootIndex;
+        for (Node node : nodes) {
+            hash = mix(hash, node.getFlags());
+            List<Integer> children = node.getChildren();
+            hash = mix(hash, children.size());
+            for (int child : children) {
+                hash = mix(hash, child);
+            }
+            hash = mix(hash, node.getRedirectNodeIndex());
+            String name = node.getName().orElse(null);
+            if (name == null) {
+                hash = mix(hash, -1);
+            } else {
+                hash = mix(hash, name.length());
+                for (int i = 0; i < name.length(); i++) {
+                    hash = mix(hash, name.charAt(i));
+                }
+            }
+            hash = mix(hash, Objects.hashCode(node.getParser().orElse(null)));
+            hash = mix(hash, Objects.hashCode(node.getProperties().orElse(null)));
+            hash = mix(hash, Objects.hashCode(node.getSuggestionsType().orElse(null)));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        hash = (hash ^ value) * 0x100000001b3L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Collects the names of all literal nodes directly under the root node.
+     */
+    public static List<String> rootLabels(List<Node> nodes, int rootIndex) {
+        List<Integer> rootChildren = nodes.get(rootIndex).getChildren();
+        List<String> labels = new ArrayList<>(rootChildren.size());
+
+        for (int childIndex : rootChildren) {
+            if (childIndex < 0 || childIndex >= nodes.size()) {
+                continue;
+            }
+
+            Node child = nodes.get(childIndex);
+            if ((byte) (child.getFlags() & Node.TYPE_MASK) == Node.TYPE_LITERAL) {
+                child.getName().ifPresent(labels::add);
+            }
+        }
+
+        return labels;
+    }
+
+    /**
+     * Checks if the literal root labels of a tree are exactly the given ones, in order, without copying them.
+     */
+    public static boolean hasRootLabels(List<Node> nodes, int rootIndex, List<String> labels) {
+        int matched = 0;
+        for (int childIndex : nodes.get(rootIndex).getChildren()) {
+            if (childIndex < 0 || childIndex >= nodes.size()) {
+                continue;
+            }
+
+            Node child = nodes.get(childIndex);
+            if ((byte) (child.getFlags() & Node.TYPE_MASK) != Node.TYPE_LITERAL) {
+                continue;
+            }
+            String name = child.getName().orElse(null);
+            if (name == null) {
+                continue;
+            }
+            if (matched >= labels.size() || !labels.get(matched).equals(name)) {
+                return false;
+            }
+            matched++;
+        }
+        return matched == labels.size();
+    }
+
+    /**
+     * Checks if a node is a literal whose name is blocked.
+     */
+    private boolean isBlockedLiteral(Node node) {
+        byte nodeType = (byte) (node.getFlags() & Node.TYPE_MASK);
+        if (nodeType != Node.TYPE_LITERAL) {
+            return false;
+        }
+
+        String name = node.getName().orElse(null);
+        return name != null && isBlocked.test(name);
+    }
+
+    private static int mapIndex(int[] indexMapping, int oldIndex) {
+        return oldIndex >= 0 && oldIndex < indexMapping.length ? indexMapping[oldIndex] : -1;
+    }
+
+    /**
+     * Result of command filtering operation.
+     */
+    public record Result(List<Node> nodes, int rootIndex, boolean changed) {}
+}
@@ -0,0 +1,93 @@
+package dev.nxms.commandblocker.listener;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Size and time budget for filtering a command tree, with a circuit breaker.
+ * After several trips in a row the full filter is skipped for a cooldown, so netty threads stay responsive.
+ */
+public class FilterBudget {
+
+    private final int maxNodes;
+    private final long maxNanos;
+    private final int tripThreshold;
+    private final long cooldownNanos;
+
+    private final AtomicInteger consecutiveTrips = new AtomicInteger();
+    private volatile boolean open;
+    private volatile long openUntil;
+
+    public FilterBudget(int maxNodes, long maxNanos, int tripThreshold, long cooldownNanos) {
+        this.maxNodes = maxNodes > 0 ? maxNodes : Integer.MAX_VALUE;
+        this.maxNanos = maxNanos > 0 ? maxNanos : Long.MAX_VALUE;
+        this.tripThreshold = Math.max(tripThreshold, 1);
+        this.cooldownNanos = Math.max(cooldownNanos, 0);
+    }
+
+    /**
+     * Creates a budget from the "filter-budget" config section, using defaults for missing values.
+     */
+    public static FilterBudget fromConfig(ConfigurationSection section) {
+        if (section == null) {
+            return new FilterBudget(20000, 5_000_000L, 3, 30_000_000_000L);
+        }
+        return new FilterBudget(
+                section.getInt("max-nodes", 20000),
+                section.getLong("max-millis", 5) * 1_000_000L,
+                section.getInt("breaker-threshold", 3),
+                section.getLong("breaker-cooldown-seconds", 30) * 1_000_000_000L
+        );
+    }
+
+    /**
+     * Checks if a tree of the given size fits the node budget.
+     */
+    public boolean fits(int nodeCount) {
+        return nodeCount <= maxNodes;
+    }
+
+    /**
+     * Checks if the circuit breaker is open, i.e. the full filter should be skipped.
+     * Once the cooldown passed the breaker closes again and the full filter gets another try.
+     */
+    public boolean isOpen() {
+        if (!open) {
+            return false;
+        }
+        if (System.nanoTime() - openUntil < 0) {
+            return true;
+        }
+        open = false;
+        consecutiveTrips.set(0);
+        return false;
+    }
+
+    /**
+     * Records a filter run within the budget.
+     */
+    public void recordSuccess() {
+        // Avoid writing the shared counter on every packet
+        if (consecutiveTrips.get() != 0) {
+            consecutiveTrips.set(0);
+        }
+    }
+
+    /**
+     * Records a filter run over the budget or a failed one.
+     * Returns true if this trip opened the circuit breaker.
+     */
+    public boolean recordTrip() {
+        if (consecutiveTrips.incrementAndGet() < tripThreshold || open) {
+            return false;
+        }
+        openUntil = System.nanoTime() + cooldownNanos;
+        open = true;
+        return true;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+}
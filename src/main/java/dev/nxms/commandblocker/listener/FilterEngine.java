@@ -0,0 +1,51 @@
+package dev.nxms.commandblocker.listener;
+
+/**
+ * Strategy used to hide blocked commands from the command tree sent to players.
+ * Command execution is always blocked at packet level, regardless of the engine.
+ */
+public enum FilterEngine {
+
+    /**
+     * Rewrites the serialized DECLARE_COMMANDS packet.
+     */
+    PACKET,
+
+    /**
+     * Removes blocked root labels in PlayerCommandSendEvent, before the tree is serialized.
+     */
+    EVENT,
+
+    /**
+     * Removes labels in PlayerCommandSendEvent and still rewrites the packet as a safety net.
+     */
+    HYBRID;
+
+    /**
+     * Checks if DECLARE_COMMANDS packets should be rewritten.
+     */
+    public boolean filtersPackets() {
+        return this != EVENT;
+    }
+
+    /**
+     * Checks if PlayerCommandSendEvent should strip blocked labels.
+     */
+    public boolean filtersEvents() {
+        return this != PACKET;
+    }
+
+    /**
+     * Parses an engine name from config, falling back to PACKET.
+     */
+    public static FilterEngine fromConfig(String name) {
+        if (name != null) {
+            for (FilterEngine engine : values()) {
+                if (engine.name().equalsIgnoreCase(name.trim())) {
+                    return engine;
+                }
+            }
+        }
+        return PACKET;
+    }
+}
@@ -0,0 +1,106 @@
+package dev.nxms.commandblocker.listener;
+
+import com.github.retrooper.packetevents.protocol.chat.Node;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of filtered command trees, keyed by the fingerprint of the unfiltered tree.
+ * Entries are only valid for the blocklist version they were filtered with.
+ * Players with the same permissions get the same tree, so a reconnect wave filters each distinct tree once.
+ */
+public class FilteredTreeCache {
+
+    private final Map<Long, Entry> entries;
+
+    // Trees being filtered right now, so concurrent packets with the same tree share one run
+    private final Map<Long, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public FilteredTreeCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the filtered tree for an unfiltered tree, or null if there is none for the current blocklist version.
+     * Besides the fingerprint, node count, root index, root labels and bypass exceptions must be equal, so even a
+     * fingerprint collision never hands out a tree showing other commands. Exceptions are null for players without any.
+     */
+    public CommandTreeFilter.Result get(long fingerprint, List<Node> nodes, int rootIndex, int blocklistVersion,
+                                        long[] exceptions) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(fingerprint);
+        }
+        return entry != null && entry.matches(nodes, rootIndex, blocklistVersion, exceptions) ? entry.result() : null;
+    }
+
+    /**
+     * Filters a tree once for all concurrent callers and caches the result.
+     * Callers arriving while the same tree is filtered wait up to maxWaitNanos for that run, then filter on their own.
+     * The filter may return null (over budget), which is passed on and not cached.
+     */
+    public CommandTreeFilter.Result filterOnce(long fingerprint, List<Node> nodes, int rootIndex, int blocklistVersion,
+                                               long[] exceptions, long maxWaitNanos,
+                                               Supplier<CommandTreeFilter.Result> filter) {
+        CompletableFuture<Entry> own = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(fingerprint, own);
+
+        if (running != null) {
+            try {
+                Entry shared = running.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+                if (shared.matches(nodes, rootIndex, blocklistVersion, exceptions)) {
+                    return shared.result();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | TimeoutException ignored) {
+                // Filter on our own below
+            }
+            return filter.get();
+        }
+
+        try {
+            CommandTreeFilter.Result result = filter.get();
+            Entry entry = new Entry(nodes.size(), rootIndex, CommandTreeFilter.rootLabels(nodes, rootIndex),
+                    blocklistVersion, exceptions, result);
+            if (result != null) {
+                synchronized (entries) {
+                    entries.put(fingerprint, entry);
+                }
+            }
+            own.complete(entry);
+            return result;
+        } catch (RuntimeException e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(fingerprint, own);
+        }
+    }
+
+    private record Entry(int nodeCount, int rootIndex, List<String> rootLabels, int blocklistVersion,
+                         long[] exceptions, CommandTreeFilter.Result result) {
+
+        boolean matches(List<Node> nodes, int rootIndex, int blocklistVersion, long[] exceptions) {
+            return this.nodeCount == nodes.size()
+                    && this.rootIndex == rootIndex
+                    && this.blocklistVersion == blocklistVersion
+                    && Arrays.equals(this.exceptions, exceptions)
+                    && CommandTreeFilter.hasRootLabels(nodes, rootIndex, rootLabels);
+        }
+    }
+}
@@ -4,48 +4,70 @@ import com.github.retrooper.packetevents.event.PacketListenerAbstract;
 import com.github.retrooper.packetevents.event.PacketListenerPriority;
 import com.github.retrooper.packetevents.event.PacketReceiveEvent;
 import com.github.retrooper.packetevents.event.PacketSendEvent;
+import com.github.retrooper.packetevents.netty.buffer.ByteBufHelper;
 import com.github.retrooper.packetevents.protocol.chat.Node;
 import com.github.retrooper.packetevents.protocol.packettype.PacketType;
 import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientChatCommand;
 import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientChatCommandUnsigned;
+import com.github.retrooper.packetevents.wrapper.play.client.WrapperPlayClientTabComplete;
 import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerDeclareCommands;
+import com.github.retrooper.packetevents.wrapper.play.server.WrapperPlayServerTabComplete;
 import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.jfr.BlockedCommandEvent;
+import dev.nxms.commandblocker.jfr.FilterCommandsEvent;
 import dev.nxms.commandblocker.manager.BlockedCommandManager;
+import dev.nxms.commandblocker.manager.BypassManager;
+import dev.nxms.commandblocker.manager.CommandTreeTracker;
+import dev.nxms.commandblocker.manager.LabelIndex;
 import dev.nxms.commandblocker.manager.MessageManager;
+import dev.nxms.commandblocker.manager.MetricsManager;
 import org.bukkit.entity.Player;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Hides blocked commands from packets using PacketEvents.
- * Handles both DECLARE_COMMANDS (tab-completion) and CHAT_COMMAND (execution).
+ * Handles DECLARE_COMMANDS (tab-completion), TAB_COMPLETE (suggestions) and CHAT_COMMAND (execution).
+ * DECLARE_COMMANDS is only rewritten when the filter engine is "packet" or "hybrid".
  */
 public class PacketListener extends PacketListenerAbstract {
 
     private final CommandBlocker plugin;
     private final BlockedCommandManager blockedManager;
+    private final BypassManager bypassManager;
     private final MessageManager messages;
+    private final CommandTreeTracker treeTracker;
+    private final MetricsManager metrics;
+    private final BudgetedTreeFilter treeFilter;
+
+    // Per netty thread buffer for labels peeked from packet bytes
+    private static final ThreadLocal<AsciiLabel> LABEL_BUFFER = ThreadLocal.withInitial(AsciiLabel::new);
 
     public PacketListener(CommandBlocker plugin) {
         super(PacketListenerPriority.HIGHEST);
         this.plugin = plugin;
         this.blockedManager = plugin.getBlockedCommandManager();
+        this.bypassManager = plugin.getBypassManager();
         this.messages = plugin.getMessageManager();
+        this.treeTracker = plugin.getCommandTreeTracker();
+        this.metrics = plugin.getMetricsManager();
+        this.treeFilter = new BudgetedTreeFilter(blockedManager::isBlocked, blockedManager::getVersion,
+                plugin::getFilterBudget, plugin.getFilteredTreeCache(), metrics, plugin.getLogger());
     }
 
     /**
      * Intercepts incoming packets (client -> server).
-     * Blocks command execution packets for blocked commands.
+     * Blocks command execution and suggestion requests for blocked commands.
      */
     @Override
     public void onPacketReceive(PacketReceiveEvent event) {
         boolean isChatCommand = event.getPacketType() == PacketType.Play.Client.CHAT_COMMAND;
         boolean isChatCommandUnsigned = event.getPacketType() == PacketType.Play.Client.CHAT_COMMAND_UNSIGNED;
+        boolean isTabComplete = event.getPacketType() == PacketType.Play.Client.TAB_COMPLETE;
 
-        if (!isChatCommand && !isChatCommandUnsigned) {
+        if (!isChatCommand && !isChatCommandUnsigned && !isTabComplete) {
             return;
         }
 
@@ -54,7 +76,32 @@ public class PacketListener extends PacketListenerAbstract {
             return;
         }
 
-        if (player.hasPermission("commandblocker.bypass")) {
+        // Oversized command packets are dropped for everyone, they can only be floods or crash attempts
+        int maxBytes = plugin.getMaxCommandPacketBytes();
+        if (!isTabComplete && maxBytes > 0 && ByteBufHelper.readableBytes(event.getByteBuf()) > maxBytes) {
+            event.setCancelled(true);
+            metrics.increment(MetricsManager.Metric.OVERSIZE_COMMANDS);
+            recordBlocked(player, null, "oversize");
+            return;
+        }
+
+        BypassManager.Exceptions exceptions = bypassManager.get(player);
+        if (bypassManager.bypassesAll(player, exceptions)) {
+            return;
+        }
+
+        if (isTabComplete) {
+            handleSuggestionRequest(event, player, exceptions);
+            return;
+        }
+
+        // Reject from the raw label bytes, so blocked commands are never decoded into a wrapper
+        // Everything else still takes the wrapper path below, the peek only ever adds rejections
+        if (peekBlockedLabel(event.getByteBuf(), exceptions)) {
+            event.setCancelled(true);
+            metrics.increment(MetricsManager.Metric.EARLY_REJECTED_COMMANDS);
+            recordBlocked(player, LABEL_BUFFER.get(), "early-blocked");
+            messages.send(player, "command-unknown");
             return;
         }
 
@@ -69,10 +116,10 @@ public class PacketListener extends PacketListenerAbstract {
                 command = packet.getCommand();
             }
 
-            String commandName = command.split(" ")[0].toLowerCase();
-
-            if (blockedManager.isBlocked(commandName)) {
+            if (blockedManager.isBlockedCommand(command, exceptions)) {
                 event.setCancelled(true);
+                metrics.increment(MetricsManager.Metric.BLOCKED_COMMANDS);
+                recordBlocked(player, command, "blocked");
                 messages.send(player, "command-unknown");
             }
         } catch (Exception e) {
@@ -80,13 +127,80 @@ public class PacketListener extends PacketListenerAbstract {
         }
     }
 
+    /**
+     * Reads the label of a command packet straight from the buffer, without moving the reader index,
+     * and checks it like the wrapper path does. Both command packets start with the command string
+     * (VarInt byte length followed by UTF-8 bytes). Returns false for anything unusual, e.g. non-ASCII labels.
+     */
+    private boolean peekBlockedLabel(Object buffer, BypassManager.Exceptions exceptions) {
+        int index = ByteBufHelper.readerIndex(buffer);
+        int end = index + ByteBufHelper.readableBytes(buffer);
+
+        int length = 0;
+        int shift = 0;
+        byte current;
+        do {
+            if (index >= end || shift >= 35) {
+                return false;
+            }
+            current = ByteBufHelper.getByte(buffer, index++);
+            length |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+
+        if (length <= 0 || length > end - index) {
+            return false;
+        }
+
+        AsciiLabel label = LABEL_BUFFER.get();
+        label.clear();
+        for (int i = 0; i < length; i++) {
+            byte b = ByteBufHelper.getByte(buffer, index + i);
+            if (b == ' ') {
+                break;
+            }
+            if (b < 0 || !label.append(b)) {
+                return false;
+            }
+        }
+
+        return blockedManager.isBlockedCommand(label, exceptions);
+    }
+
+    /**
+     * Cancels suggestion requests for blocked commands before the server computes any suggestions.
+     * The client simply shows no suggestions, the same as for an unknown command.
+     */
+    private void handleSuggestionRequest(PacketReceiveEvent event, Player player, BypassManager.Exceptions exceptions) {
+        try {
+            WrapperPlayClientTabComplete packet = new WrapperPlayClientTabComplete(event);
+            String text = packet.getText();
+
+            if (text != null && blockedManager.isBlockedCommandLine(text, exceptions)) {
+                event.setCancelled(true);
+                metrics.increment(MetricsManager.Metric.BLOCKED_SUGGESTION_REQUESTS);
+                recordBlocked(player, text, "suggestion");
+            }
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to process suggestion request: " + e.getMessage());
+        }
+    }
+
     /**
      * Intercepts outgoing packets (server -> client).
-     * Removes blocked commands from DECLARE_COMMANDS packet.
+     * Removes blocked commands from DECLARE_COMMANDS and suggestion (TAB_COMPLETE) packets.
      */
     @Override
     public void onPacketSend(PacketSendEvent event) {
-        if (event.getPacketType() != PacketType.Play.Server.DECLARE_COMMANDS) {
+        boolean isDeclareCommands = event.getPacketType() == PacketType.Play.Server.DECLARE_COMMANDS;
+        boolean isTabComplete = event.getPacketType() == PacketType.Play.Server.TAB_COMPLETE;
+
+        if (!isDeclareCommands && !isTabComplete) {
+            return;
+        }
+
+        FilterEngine engine = plugin.getFilterEngine();
+        if (isDeclareCommands && !engine.filtersPackets()) {
             return;
         }
 
@@ -95,7 +209,17 @@ public class PacketListener extends PacketListenerAbstract {
             return;
         }
 
-        if (player.hasPermission("commandblocker.bypass")) {
+        BypassManager.Exceptions exceptions = bypassManager.get(player);
+        if (bypassManager.bypassesAll(player, exceptions)) {
+            if (isDeclareCommands && !engine.filtersEvents()) {
+                // Blocklist changes never affect the tree of bypassing players
+                treeTracker.forget(player);
+            }
+            return;
+        }
+
+        if (isTabComplete) {
+            handleSuggestionResponse(event, exceptions);
             return;
         }
 
@@ -109,114 +233,159 @@ public class PacketListener extends PacketListenerAbstract {
                 return;
             }
 
-            FilterResult result = filterCommands(nodes, rootIndex);
+            // Record the unfiltered root labels, so both blocking and unblocking can find affected players
+            // With event filtering the labels were already recorded before they got stripped
+            if (!engine.filtersEvents()) {
+                treeTracker.record(player, CommandTreeFilter.rootLabels(nodes, rootIndex));
+            }
+
+            FilterCommandsEvent filterEvent = new FilterCommandsEvent();
+            filterEvent.begin();
+
+            CommandTreeFilter.Result result = treeFilter.filter(nodes, rootIndex, exceptions);
+
+            if (filterEvent.shouldCommit()) {
+                filterEvent.player = player.getName();
+                filterEvent.engine = "packet";
+                filterEvent.nodesIn = nodes.size();
+                filterEvent.nodesOut = result.nodes().size();
+                filterEvent.changed = result.changed();
+                filterEvent.commit();
+            }
 
-            if (!result.changed) {
+            if (!result.changed()) {
                 return;
             }
 
-            packet.setNodes(result.nodes);
-            packet.setRootIndex(result.rootIndex);
+            packet.setNodes(result.nodes());
+            packet.setRootIndex(result.rootIndex());
             packet.write();
         } catch (Exception e) {
+            // Sending the unfiltered tree would leak blocked commands, the client keeps its previous tree instead
+            event.setCancelled(true);
+            metrics.increment(MetricsManager.Metric.CANCELLED_COMMAND_TREES);
             plugin.getLogger().warning("Failed to filter commands packet: " + e.getMessage());
         }
     }
 
     /**
-     * Filters command nodes, removing blocked commands.
+     * Removes suggestions completing a blocked command label, e.g. "/ess" to "essentials:vanish".
+     * Only responses completing the root label are filtered, argument suggestions such as "help" in "/cb help"
+     * are left alone. The packet is only rewritten if something was removed.
      */
-    private FilterResult filterCommands(List<Node> originalNodes, int originalRootIndex) {
-        List<Node> newNodes = new ArrayList<>();
-        Map<Integer, Integer> indexMapping = new HashMap<>();
-        boolean changed = false;
-
-        for (int i = 0; i < originalNodes.size(); i++) {
-            Node node = originalNodes.get(i);
+    private void handleSuggestionResponse(PacketSendEvent event, BypassManager.Exceptions exceptions) {
+        try {
+            WrapperPlayServerTabComplete packet = new WrapperPlayServerTabComplete(event);
+            List<WrapperPlayServerTabComplete.CommandMatch> matches = packet.getCommandMatches();
 
-            if (shouldRemoveNode(node, i, originalRootIndex, originalNodes)) {
-                changed = true;
-                continue;
+            if (matches == null || matches.isEmpty()) {
+                return;
             }
 
-            indexMapping.put(i, newNodes.size());
-            newNodes.add(node);
-        }
-
-        List<Node> updatedNodes = new ArrayList<>();
-        for (Node node : newNodes) {
-            List<Integer> remappedChildren = new ArrayList<>();
-            for (int oldChild : node.getChildren()) {
-                Integer mapped = indexMapping.get(oldChild);
-                if (mapped != null) {
-                    remappedChildren.add(mapped);
-                } else {
-                    changed = true;
+            // Suggestions for the label replace the text right after the leading slash, anything later is an argument
+            // Legacy responses have no range, their label suggestions are the ones starting with a slash
+            int rangeBegin = packet.getCommandRange()
+                    .map(WrapperPlayServerTabComplete.CommandRange::getBegin)
+                    .orElse(-1);
+            if (rangeBegin > 1) {
+                return;
+            }
+            boolean slashRequired = rangeBegin < 0;
+
+            List<WrapperPlayServerTabComplete.CommandMatch> allowed = null;
+            for (int i = 0; i < matches.size(); i++) {
+                WrapperPlayServerTabComplete.CommandMatch match = matches.get(i);
+                boolean blocked = isBlockedSuggestion(match.getText(), slashRequired, exceptions);
+
+                // Copy lazily, so responses without blocked entries don't allocate
+                if (blocked && allowed == null) {
+                    allowed = new ArrayList<>(matches.subList(0, i));
+                } else if (!blocked && allowed != null) {
+                    allowed.add(match);
                 }
             }
 
-            byte newFlags = node.getFlags();
-            int newRedirectIndex = node.getRedirectNodeIndex();
-
-            boolean hasRedirect = (newFlags & Node.FLAG_REDIRECT) == Node.FLAG_REDIRECT;
-            if (hasRedirect) {
-                Integer mappedRedirect = indexMapping.get(node.getRedirectNodeIndex());
-                if (mappedRedirect != null) {
-                    newRedirectIndex = mappedRedirect;
-                } else {
-                    newFlags = (byte) (newFlags & ~Node.FLAG_REDIRECT);
-                    newRedirectIndex = 0;
-                    changed = true;
-                }
+            if (allowed == null) {
+                return;
             }
 
-            updatedNodes.add(new Node(
-                    newFlags,
-                    remappedChildren,
-                    newRedirectIndex,
-                    node.getName().orElse(null),
-                    node.getParser().orElse(null),
-                    node.getProperties().orElse(null),
-                    node.getSuggestionsType().orElse(null)
-            ));
+            metrics.increment(MetricsManager.Metric.FILTERED_SUGGESTIONS);
+            packet.setCommandMatches(allowed);
+            packet.write();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to filter suggestions packet: " + e.getMessage());
         }
+    }
 
-        int newRootIndex = indexMapping.getOrDefault(originalRootIndex, 0);
-        if (newRootIndex != originalRootIndex) {
-            changed = true;
+    /**
+     * Checks if a suggestion is exactly a blocked command label.
+     * Suggestions with a range replace the text after the typed slash, so they are the label itself,
+     * e.g. "/wand" for WorldEdit's //wand. Legacy suggestions include the typed slash.
+     */
+    private boolean isBlockedSuggestion(String text, boolean slashRequired, BypassManager.Exceptions exceptions) {
+        if (text == null || text.isEmpty()) {
+            return false;
+        }
+        if (slashRequired) {
+            return text.charAt(0) == '/'
+                    && LabelIndex.labelEnd(text, 1) == text.length()
+                    && blockedManager.isBlockedCommandLine(text, exceptions);
         }
+        return LabelIndex.labelEnd(text, 0) == text.length() && blockedManager.isBlockedCommand(text, exceptions);
+    }
 
-        return new FilterResult(updatedNodes, newRootIndex, changed);
+    /**
+     * Records a rejected command as a JFR event, the command is only copied while recording.
+     */
+    private static void recordBlocked(Player player, CharSequence command, String reason) {
+        BlockedCommandEvent jfrEvent = new BlockedCommandEvent();
+        if (jfrEvent.shouldCommit()) {
+            jfrEvent.player = player.getName();
+            jfrEvent.command = command != null ? command.toString() : null;
+            jfrEvent.reason = reason;
+            jfrEvent.commit();
+        }
     }
 
     /**
-     * Determines if a node should be removed.
+     * Reusable ASCII character sequence, filled byte by byte from a packet buffer.
      */
-    private boolean shouldRemoveNode(Node node, int nodeIndex, int rootIndex, List<Node> allNodes) {
-        byte nodeType = (byte) (node.getFlags() & Node.TYPE_MASK);
-        if (nodeType != Node.TYPE_LITERAL) {
-            return false;
+    private static final class AsciiLabel implements CharSequence {
+
+        // Commands are limited to 256 characters by the protocol
+        private final byte[] bytes = new byte[256];
+        private int length;
+
+        void clear() {
+            length = 0;
         }
 
-        String name = node.getName().orElse(null);
-        if (name == null) {
-            return false;
+        boolean append(byte b) {
+            if (length == bytes.length) {
+                return false;
+            }
+            bytes[length++] = b;
+            return true;
         }
 
-        Node rootNode = allNodes.get(rootIndex);
-        List<Integer> rootChildren = rootNode.getChildren();
+        @Override
+        public int length() {
+            return length;
+        }
 
-        for (int childIndex : rootChildren) {
-            if (childIndex == nodeIndex) {
-                return blockedManager.isBlocked(name.toLowerCase());
-            }
+        @Override
+        public char charAt(int index) {
+            return (char) bytes[index];
         }
 
-        return false;
-    }
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
 
-    /**
-     * Result of command filtering operation.
-     */
-    private record FilterResult(List<Node> nodes, int rootIndex, boolean changed) {}
-}
\ No newline at end of file
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+        }
+    }
+}
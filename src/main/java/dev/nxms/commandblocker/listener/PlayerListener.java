@@ -0,0 +1,45 @@
+package dev.nxms.commandblocker.listener;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.manager.BypassManager;
+import dev.nxms.commandblocker.manager.PlayerStateRegistry;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Handles player lifecycle events.
+ * Registers per-player state and computes bypass exceptions when players join, releases it when they leave.
+ */
+public class PlayerListener implements Listener {
+
+    private final PlayerStateRegistry playerStates;
+    private final BypassManager bypassManager;
+
+    public PlayerListener(CommandBlocker plugin) {
+        this.playerStates = plugin.getPlayerStateRegistry();
+        this.bypassManager = plugin.getBypassManager();
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        bypassManager.update(event.getPlayer());
+    }
+
+    /**
+     * Recomputes bypass exceptions before the command tree is sent.
+     * The tree is resent on permission changes, so exceptions follow them.
+     */
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerCommandSend(PlayerCommandSendEvent event) {
+        bypassManager.update(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        playerStates.unregister(event.getPlayer());
+    }
+}
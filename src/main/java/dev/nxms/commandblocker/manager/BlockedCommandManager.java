@@ -1,20 +1,32 @@
 package dev.nxms.commandblocker.manager;
 
 import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.sync.SyncManager;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Manages the list of blocked commands.
  * Handles adding, removing, and checking blocked commands.
+ * Commands blocked by active schedules are blocked too, but never saved to the blocked list.
  */
 public class BlockedCommandManager {
 
     private final CommandBlocker plugin;
     private final Set<String> blockedCommands;
 
+    // Commands blocked by active scheduled rules, see ScheduledBlockManager
+    private Set<String> scheduledCommands = Set.of();
+
+    // Immutable snapshot of every label hidden by the blocked commands, safe to read from netty threads
+    // The version is incremented on every change, lets dependent caches detect a stale blocklist
+    private volatile Snapshot snapshot = new Snapshot(LabelIndex.EMPTY, new String[0], 0);
+
     public BlockedCommandManager(CommandBlocker plugin) {
         this.plugin = plugin;
         this.blockedCommands = new HashSet<>();
@@ -23,19 +35,37 @@ public class BlockedCommandManager {
 
     /**
      * Reloads blocked commands from config.
+     * Returns the labels whose blocked state changed.
      */
-    public void reload() {
+    public Set<String> reload() {
+        Set<String> previous = new HashSet<>(blockedCommands);
+
         blockedCommands.clear();
         List<String> commands = plugin.getConfig().getStringList("blocked-commands");
         for (String command : commands) {
             blockedCommands.add(command.toLowerCase());
         }
+        rebuildIndex();
+
+        Set<String> changed = new HashSet<>();
+        for (String command : previous) {
+            if (!blockedCommands.contains(command)) {
+                changed.addAll(labelsOf(command));
+            }
+        }
+        for (String command : blockedCommands) {
+            if (!previous.contains(command)) {
+                changed.addAll(labelsOf(command));
+            }
+        }
 
         plugin.getLogger().info("Blocked Commands has been reloaded.");
+        return changed;
     }
 
     /**
      * Saves blocked commands to config.
+     * The file itself is written on the I/O executor.
      */
     private void save() {
         plugin.getConfig().set("blocked-commands", blockedCommands.stream().sorted().toList());
@@ -52,8 +82,10 @@ public class BlockedCommandManager {
             return false;
         }
         blockedCommands.add(lowerCommand);
+        rebuildIndex();
         save();
-        plugin.updateCommandsForAllPlayers();
+        publish(lowerCommand, true);
+        plugin.updateCommandsFor(labelsOf(lowerCommand));
         return true;
     }
 
@@ -67,48 +99,220 @@ public class BlockedCommandManager {
             return false;
         }
         blockedCommands.remove(lowerCommand);
+        rebuildIndex();
         save();
-        plugin.updateCommandsForAllPlayers();
+        publish(lowerCommand, false);
+        plugin.updateCommandsFor(labelsOf(lowerCommand));
         return true;
     }
 
+    /**
+     * Applies changes received from other servers, mapping each command to its new blocked state.
+     * The whole batch is saved once and only affected players are refreshed.
+     */
+    public void applyRemoteChanges(Map<String, Boolean> changes) {
+        Set<String> changedLabels = new HashSet<>();
+
+        for (Map.Entry<String, Boolean> change : changes.entrySet()) {
+            String lowerCommand = change.getKey().toLowerCase();
+            boolean modified = change.getValue()
+                    ? blockedCommands.add(lowerCommand)
+                    : blockedCommands.remove(lowerCommand);
+            if (modified) {
+                changedLabels.addAll(labelsOf(lowerCommand));
+            }
+        }
+
+        if (changedLabels.isEmpty()) {
+            return;
+        }
+
+        rebuildIndex();
+        save();
+        plugin.updateCommandsFor(changedLabels);
+        plugin.getLogger().info("Applied " + changes.size() + " blocklist change(s) from other servers.");
+    }
+
+    /**
+     * Replaces the commands blocked by active schedules.
+     * All changes are applied with one snapshot swap, only affected players are refreshed.
+     */
+    public void setScheduledCommands(Set<String> commands) {
+        Set<String> previous = effectiveCommands();
+        scheduledCommands = Set.copyOf(commands);
+        Set<String> current = effectiveCommands();
+
+        Set<String> changedLabels = new HashSet<>();
+        for (String command : previous) {
+            if (!current.contains(command)) {
+                changedLabels.addAll(labelsOf(command));
+            }
+        }
+        for (String command : current) {
+            if (!previous.contains(command)) {
+                changedLabels.addAll(labelsOf(command));
+            }
+        }
+
+        if (changedLabels.isEmpty()) {
+            return;
+        }
+
+        rebuildIndex();
+        plugin.updateCommandsFor(changedLabels);
+    }
+
+    /**
+     * Returns the saved blocked commands together with the ones blocked by active schedules.
+     */
+    private Set<String> effectiveCommands() {
+        Set<String> commands = new HashSet<>(blockedCommands);
+        commands.addAll(scheduledCommands);
+        return commands;
+    }
+
+    /**
+     * Publishes a local change to other servers, if syncing is enabled.
+     */
+    private void publish(String command, boolean blocked) {
+        SyncManager syncManager = plugin.getSyncManager();
+        if (syncManager != null) {
+            syncManager.publish(command, blocked);
+        }
+    }
+
     /**
      * Checks if a command is blocked.
      * Supports both namespaced (plugin:command) and simple command formats.
      */
     public boolean isBlocked(String command) {
-        String lowerCommand = command.toLowerCase();
+        return snapshot.labels().contains(command);
+    }
 
-        // Direct match
-        if (blockedCommands.contains(lowerCommand)) {
+    /**
+     * Checks if a command is blocked for a player with the given bypass exceptions.
+     * A label stays blocked unless every entry blocking it is excepted.
+     */
+    public boolean isBlocked(String command, BypassManager.Exceptions exceptions) {
+        Snapshot current = snapshot;
+        return blocks(current, current.labels().owners(command, 0, command.length()), exceptions);
+    }
+
+    /**
+     * Checks if the label of a command packet (first word) is blocked for a player with the given bypass exceptions.
+     * Command packets carry the command without the typed slash, so a leading slash belongs to the label,
+     * e.g. "//wand" is sent as "/wand". Does not allocate, so it is safe to call for every packet.
+     */
+    public boolean isBlockedCommand(CharSequence command, BypassManager.Exceptions exceptions) {
+        Snapshot current = snapshot;
+        return blocks(current, current.labels().owners(command, 0, LabelIndex.labelEnd(command, 0)), exceptions);
+    }
+
+    /**
+     * Checks if the label of a command line as typed in chat (first word after the leading slash) is blocked
+     * for a player with the given bypass exceptions, e.g. the text of a suggestion request.
+     * Does not allocate, so it is safe to call for every packet.
+     */
+    public boolean isBlockedCommandLine(CharSequence commandLine, BypassManager.Exceptions exceptions) {
+        Snapshot current = snapshot;
+        int start = commandLine.length() > 0 && commandLine.charAt(0) == '/' ? 1 : 0;
+        int end = LabelIndex.labelEnd(commandLine, start);
+        return blocks(current, current.labels().owners(commandLine, start, end), exceptions);
+    }
+
+    /**
+     * Checks if a label owned by the given entries is blocked despite the exceptions.
+     * Exceptions computed for another blocklist version are ignored, so a change never lets anything through.
+     */
+    private static boolean blocks(Snapshot current, int[] owners, BypassManager.Exceptions exceptions) {
+        if (owners == null) {
+            return false;
+        }
+        if (exceptions == null || exceptions.blocklistVersion() != current.version()) {
             return true;
         }
+        if (exceptions.all()) {
+            return false;
+        }
+        for (int owner : owners) {
+            if (!exceptions.has(owner)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        // Check if command matches any blocked command
-        for (String blocked : blockedCommands) {
-            if (blocked.contains(":")) {
-                String blockedName = blocked.split(":")[1];
-
-                if (lowerCommand.contains(":")) {
-                    if (blocked.equals(lowerCommand)) {
-                        return true;
-                    }
-                } else {
-                    if (blockedName.equals(lowerCommand)) {
-                        return true;
-                    }
-                }
+    /**
+     * Rebuilds the label snapshot used by {@link #isBlocked(String)}.
+     * Entries are numbered in sorted order, each label maps to the entries hiding it.
+     */
+    private void rebuildIndex() {
+        Snapshot previous = snapshot;
+        String[] entries = effectiveCommands().stream().sorted().toArray(String[]::new);
+
+        Map<String, int[]> labelOwners = new HashMap<>();
+        for (int i = 0; i < entries.length; i++) {
+            int entryId = i;
+            for (String label : labelsOf(entries[i])) {
+                labelOwners.merge(label, new int[]{entryId}, BlockedCommandManager::concat);
             }
         }
+        snapshot = new Snapshot(LabelIndex.of(labelOwners), entries, previous.version() + 1);
 
-        return false;
+        BypassManager bypassManager = plugin.getBypassManager();
+        if (bypassManager != null) {
+            bypassManager.updateAll(previous.entries());
+        }
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        int[] merged = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, merged, first.length, second.length);
+        return merged;
+    }
+
+    /**
+     * Returns the root labels hidden by a blocked command.
+     * A namespaced command (plugin:command) also hides its simple name.
+     */
+    public static Set<String> labelsOf(String command) {
+        String lowerCommand = command.toLowerCase();
+        int colonIndex = lowerCommand.indexOf(':');
+        if (colonIndex < 0 || colonIndex == lowerCommand.length() - 1) {
+            return Set.of(lowerCommand);
+        }
+
+        int nameEnd = lowerCommand.indexOf(':', colonIndex + 1);
+        String name = lowerCommand.substring(colonIndex + 1, nameEnd < 0 ? lowerCommand.length() : nameEnd);
+        return name.isEmpty() ? Set.of(lowerCommand) : Set.of(lowerCommand, name);
     }
 
     /**
-     * Returns a copy of the blocked commands set.
+     * Returns a copy of the blocked commands set, including commands blocked by active schedules.
      */
     public Set<String> getBlockedCommands() {
-        return new HashSet<>(blockedCommands);
+        return effectiveCommands();
+    }
+
+    /**
+     * Checks if a command is on the saved blocked list.
+     */
+    public boolean isPermanentlyBlocked(String command) {
+        return blockedCommands.contains(command.toLowerCase());
+    }
+
+    /**
+     * Returns the blocked commands in entry id order. The returned array must not be modified.
+     */
+    public String[] getEntries() {
+        return snapshot.entries();
+    }
+
+    /**
+     * Returns the current blocklist version.
+     */
+    public int getVersion() {
+        return snapshot.version();
     }
 
     /**
@@ -117,4 +321,9 @@ public class BlockedCommandManager {
     public boolean isEmpty() {
         return blockedCommands.isEmpty();
     }
-}
\ No newline at end of file
+
+    /**
+     * Label index, sorted entries and version of one blocklist state.
+     */
+    private record Snapshot(LabelIndex labels, String[] entries, int version) {}
+}
@@ -0,0 +1,143 @@
+package dev.nxms.commandblocker.manager;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import org.bukkit.entity.Player;
+
+import java.util.Arrays;
+
+/**
+ * Precomputes which blocklist entries each player may bypass.
+ * "commandblocker.bypass" bypasses everything, "commandblocker.bypass.<command>" a single entry, e.g.
+ * commandblocker.bypass.essentials:vanish. Permissions are checked on the main thread when a player joins,
+ * when their command tree is resent (which also happens on permission changes) and when the blocklist changes,
+ * so packet handlers only test bits. Exceptions are kept in the {@link PlayerState} of each player.
+ */
+public class BypassManager {
+
+    public static final String BYPASS_PERMISSION = "commandblocker.bypass";
+
+    private final CommandBlocker plugin;
+    private final BlockedCommandManager blockedManager;
+    private final PlayerStateRegistry playerStates;
+
+    public BypassManager(CommandBlocker plugin) {
+        this.plugin = plugin;
+        this.blockedManager = plugin.getBlockedCommandManager();
+        this.playerStates = plugin.getPlayerStateRegistry();
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            update(player);
+        }
+    }
+
+    /**
+     * Recomputes the exceptions of a player against the current blocklist.
+     */
+    public void update(Player player) {
+        playerStates.register(player).setBypassExceptions(
+                compute(player, blockedManager.getEntries(), blockedManager.getVersion()));
+    }
+
+    /**
+     * Recomputes the exceptions of all online players after the blocklist changed.
+     * Entries that were blocked before keep their bits, only new entries are checked against permissions.
+     */
+    void updateAll(String[] previousEntries) {
+        String[] entries = blockedManager.getEntries();
+        int version = blockedManager.getVersion();
+
+        for (Player player : plugin.getServer().getOnlinePlayers()) {
+            PlayerState state = playerStates.register(player);
+            Exceptions previous = state.getBypassExceptions();
+            if (previous == null || previous.all() || previous.blocklistVersion() != version - 1) {
+                state.setBypassExceptions(compute(player, entries, version));
+                continue;
+            }
+
+            long[] words = new long[wordCount(entries.length)];
+            for (int i = 0; i < entries.length; i++) {
+                int previousId = Arrays.binarySearch(previousEntries, entries[i]);
+                boolean excepted = previousId >= 0
+                        ? previous.has(previousId)
+                        : player.hasPermission(BYPASS_PERMISSION + "." + entries[i]);
+                if (excepted) {
+                    words[i >>> 6] |= 1L << i;
+                }
+            }
+            state.setBypassExceptions(new Exceptions(version, false, words));
+        }
+    }
+
+    /**
+     * Returns the exceptions of a player, or null if they were not computed yet.
+     */
+    public Exceptions get(Player player) {
+        PlayerState state = playerStates.get(player);
+        return state != null ? state.getBypassExceptions() : null;
+    }
+
+    /**
+     * Checks if a player bypasses every blocked command.
+     * Falls back to a permission check for players whose exceptions were not computed yet.
+     */
+    public boolean bypassesAll(Player player, Exceptions playerExceptions) {
+        return playerExceptions != null ? playerExceptions.all() : player.hasPermission(BYPASS_PERMISSION);
+    }
+
+    private static Exceptions compute(Player player, String[] entries, int version) {
+        if (player.hasPermission(BYPASS_PERMISSION)) {
+            return new Exceptions(version, true, new long[0]);
+        }
+
+        long[] words = new long[wordCount(entries.length)];
+        for (int i = 0; i < entries.length; i++) {
+            if (player.hasPermission(BYPASS_PERMISSION + "." + entries[i])) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+        return new Exceptions(version, false, words);
+    }
+
+    private static int wordCount(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    /**
+     * Immutable bypass state of a player for one blocklist version.
+     * Bit i is set if the player may use blocklist entry i.
+     */
+    public record Exceptions(int blocklistVersion, boolean all, long[] words) {
+
+        /**
+         * Checks if the player may use the blocklist entry with the given id.
+         */
+        public boolean has(int entryId) {
+            int word = entryId >>> 6;
+            return word < words.length && (words[word] & (1L << entryId)) != 0;
+        }
+
+        /**
+         * Checks if the player may not use any blocked entry.
+         */
+        public boolean isEmpty() {
+            for (long word : words) {
+                if (word != 0) {
+                    return false;
+                }
+            }
+            return !all;
+        }
+
+        /**
+         * Returns a 64-bit hash of the excepted entries, used to spread cached trees of different players.
+         * Equal hashes do not mean equal exceptions, compare the words for that.
+         */
+        public long entriesHash() {
+            long hash = 0xcbf29ce484222325L;
+            for (long word : words) {
+                hash = (hash ^ word) * 0x100000001b3L;
+                hash ^= hash >>> 32;
+            }
+            return hash;
+        }
+    }
+}
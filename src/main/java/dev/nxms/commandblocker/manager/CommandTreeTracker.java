@@ -0,0 +1,76 @@
+package dev.nxms.commandblocker.manager;
+
+import org.bukkit.entity.Player;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks which root command labels each player was last sent.
+ * Labels are interned to small integer ids so every player only holds a compact bitset in their {@link PlayerState}.
+ */
+public class CommandTreeTracker {
+
+    private final PlayerStateRegistry playerStates;
+    private final Map<String, Integer> labelIds = new ConcurrentHashMap<>();
+    private final AtomicInteger nextLabelId = new AtomicInteger();
+
+    public CommandTreeTracker(PlayerStateRegistry playerStates) {
+        this.playerStates = playerStates;
+    }
+
+    /**
+     * Records the root labels of the command tree sent to a player.
+     * Replaces any previously recorded tree. Players without a registered state are skipped.
+     */
+    public void record(Player player, Collection<String> labels) {
+        PlayerState state = playerStates.get(player);
+        if (state == null) {
+            return;
+        }
+
+        BitSet bits = new BitSet();
+        for (String label : labels) {
+            bits.set(labelId(label.toLowerCase()));
+        }
+        state.setCommandLabels(bits);
+    }
+
+    /**
+     * Forgets the recorded tree of a player.
+     */
+    public void forget(Player player) {
+        PlayerState state = playerStates.get(player);
+        if (state != null && state.getCommandLabels() != null) {
+            state.setCommandLabels(null);
+        }
+    }
+
+    /**
+     * Checks if the last tree sent to a player contained any of the given labels.
+     * Players without a recorded tree are never affected.
+     */
+    public boolean containsAny(Player player, Collection<String> labels) {
+        PlayerState state = playerStates.get(player);
+        BitSet bits = state != null ? state.getCommandLabels() : null;
+        if (bits == null) {
+            return false;
+        }
+
+        for (String label : labels) {
+            Integer id = labelIds.get(label);
+            if (id != null && bits.get(id)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int labelId(String label) {
+        return labelIds.computeIfAbsent(label, key -> nextLabelId.getAndIncrement());
+    }
+}
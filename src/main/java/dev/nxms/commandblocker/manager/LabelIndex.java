@@ -0,0 +1,156 @@
+package dev.nxms.commandblocker.manager;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Immutable open-addressing set of lowercase command labels.
+ * Lookups hash and compare a range of any character sequence case-insensitively,
+ * so a label can be checked straight from a command line without substrings or lowercasing.
+ * Each label can carry the ids of the entries it came from.
+ */
+public final class LabelIndex {
+
+    public static final LabelIndex EMPTY = new LabelIndex(new String[1], new int[1][], 0);
+
+    private static final int[] NO_OWNERS = new int[0];
+
+    private final String[] table;
+    private final int[][] owners;
+    private final int mask;
+    private final int size;
+
+    private LabelIndex(String[] table, int[][] owners, int size) {
+        this.table = table;
+        this.owners = owners;
+        this.mask = table.length - 1;
+        this.size = size;
+    }
+
+    /**
+     * Builds an index from lowercase labels.
+     */
+    public static LabelIndex of(Collection<String> labels) {
+        return build(labels, null);
+    }
+
+    /**
+     * Builds an index from lowercase labels mapped to the ids of the entries they came from.
+     */
+    public static LabelIndex of(Map<String, int[]> labelOwners) {
+        return build(labelOwners.keySet(), labelOwners);
+    }
+
+    private static LabelIndex build(Collection<String> labels, Map<String, int[]> labelOwners) {
+        if (labels.isEmpty()) {
+            return EMPTY;
+        }
+
+        // Keep the load factor at or below 0.5, so probe chains stay short
+        int capacity = Integer.highestOneBit(Math.max(labels.size(), 1) * 4 - 1);
+        String[] table = new String[capacity];
+        int[][] owners = new int[capacity][];
+        int mask = capacity - 1;
+        int size = 0;
+
+        for (String label : labels) {
+            int slot = hash(label, 0, label.length()) & mask;
+            while (table[slot] != null) {
+                if (table[slot].equals(label)) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (table[slot] == null) {
+                table[slot] = label;
+                owners[slot] = labelOwners != null ? labelOwners.get(label) : NO_OWNERS;
+                size++;
+            }
+        }
+
+        return new LabelIndex(table, owners, size);
+    }
+
+    /**
+     * Checks if the whole sequence is a label in this index.
+     */
+    public boolean contains(CharSequence label) {
+        return contains(label, 0, label.length());
+    }
+
+    /**
+     * Checks if the characters between start (inclusive) and end (exclusive) are a label in this index.
+     */
+    public boolean contains(CharSequence text, int start, int end) {
+        return find(text, start, end) >= 0;
+    }
+
+    /**
+     * Returns the entry ids of the label between start (inclusive) and end (exclusive),
+     * or null if it is not in this index. The returned array must not be modified.
+     */
+    public int[] owners(CharSequence text, int start, int end) {
+        int slot = find(text, start, end);
+        return slot >= 0 ? owners[slot] : null;
+    }
+
+    /**
+     * Returns the slot of a label, or -1 if it is not in this index.
+     */
+    private int find(CharSequence text, int start, int end) {
+        if (size == 0 || start >= end) {
+            return -1;
+        }
+
+        int slot = hash(text, start, end) & mask;
+        String candidate;
+        while ((candidate = table[slot]) != null) {
+            if (matches(candidate, text, start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first space at or after start, or the length if there is none.
+     */
+    public static int labelEnd(CharSequence text, int start) {
+        int length = text.length();
+        for (int i = start; i < length; i++) {
+            if (text.charAt(i) == ' ') {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns the number of labels in this index.
+     */
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(String candidate, CharSequence text, int start, int end) {
+        if (candidate.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < candidate.length(); i++) {
+            if (candidate.charAt(i) != Character.toLowerCase(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        // Spread the high bits, the table is indexed by the low ones
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -4,6 +4,7 @@ import dev.nxms.commandblocker.CommandBlocker;
 import org.bukkit.command.CommandSender;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.io.InputStream;
@@ -11,21 +12,51 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Manages plugin messages and translations.
  * Supports multiple languages, modular prefixes, and color formatting.
+ * Players can get messages in their client locale, language files are loaded lazily and cached in bounded caches.
  */
 public class MessageManager {
 
     private final CommandBlocker plugin;
 
-    private FileConfiguration messagesConfig;
-    private String language;
+    private volatile FileConfiguration messagesConfig;
+    private volatile String language;
+
+    private volatile boolean perPlayerLocale;
+    private volatile int maxLocaleBundles;
+    private volatile int maxRenderedMessages;
+
+    // Incremented on reload, so bundles loaded for older files are discarded
+    private volatile int generation;
+
+    // Client locales without a messages file are remembered separately, so they never evict real bundles
+    // Minecraft has about 130 locales, the bound only matters for modified clients sending made-up ones
+    private static final int MAX_MISSING_LOCALES = 256;
+
+    // Both caches are LRU and bounded, guarded by their own monitor
+    // The bundle cache is sized to the messages files present, so every file fits at once
+    private final Map<String, FileConfiguration> localeBundles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileConfiguration> eldest) {
+            return size() > maxLocaleBundles;
+        }
+    };
+    private final Map<String, String> renderedMessages = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > maxRenderedMessages;
+        }
+    };
+    private final Set<String> missingLocales = ConcurrentHashMap.newKeySet();
 
     // Pattern for hex colors (&#RRGGBB)
     private static final Pattern HEX_PATTERN = Pattern.compile("&#([A-Fa-f0-9]{6})");
@@ -42,6 +73,14 @@ public class MessageManager {
      * Loads messages from the language file.
      */
     public void loadMessages() {
+        apply(readMessages(plugin.getConfig().getString("language", "en")));
+    }
+
+    /**
+     * Reads the message file of a language from disk.
+     * Performs blocking I/O only and does not touch the active messages, so it may run off the main thread.
+     */
+    public LoadedMessages readMessages(String language) {
         // Ensure plugin folder exists
         if (!plugin.getDataFolder().exists()) {
             //noinspection ResultOfMethodCallIgnored
@@ -51,9 +90,8 @@ public class MessageManager {
         // Save default message file if exists in JAR
         saveDefaultMessageFile("messages_en.yml");
 
-        // Load language from config
-        language = plugin.getConfig().getString("language", "en").toLowerCase();
-        String fileName = "messages_" + language + ".yml";
+        String lowerLanguage = language.toLowerCase();
+        String fileName = "messages_" + lowerLanguage + ".yml";
         File messagesFile = new File(plugin.getDataFolder(), fileName);
 
         // Fallback to English if selected language doesn't exist
@@ -68,7 +106,7 @@ public class MessageManager {
             }
         }
 
-        messagesConfig = YamlConfiguration.loadConfiguration(messagesFile);
+        FileConfiguration config = YamlConfiguration.loadConfiguration(messagesFile);
 
         // Load defaults from JAR
         InputStream defaultStream = plugin.getResource(fileName);
@@ -76,10 +114,42 @@ public class MessageManager {
             YamlConfiguration defaultConfig = YamlConfiguration.loadConfiguration(
                     new InputStreamReader(defaultStream, StandardCharsets.UTF_8)
             );
-            messagesConfig.setDefaults(defaultConfig);
+            config.setDefaults(defaultConfig);
         }
 
-        plugin.getLogger().info("Messages file has been loaded (" + messagesFile.getName() + ").");
+        return new LoadedMessages(lowerLanguage, messagesFile.getName(), config, countMessageFiles());
+    }
+
+    /**
+     * Counts the messages_*.yml files in the plugin folder.
+     */
+    private int countMessageFiles() {
+        File[] files = plugin.getDataFolder().listFiles(
+                (directory, name) -> name.startsWith("messages_") && name.endsWith(".yml"));
+        return files != null ? files.length : 0;
+    }
+
+    /**
+     * Makes previously read messages the active ones.
+     */
+    public void apply(LoadedMessages loaded) {
+        language = loaded.language();
+        messagesConfig = loaded.config();
+
+        perPlayerLocale = plugin.getConfig().getBoolean("per-player-locale", true);
+        maxLocaleBundles = Math.max(loaded.messageFiles(), 1);
+        maxRenderedMessages = Math.max(plugin.getConfig().getInt("message-cache-size", 512), 1);
+
+        generation++;
+        synchronized (localeBundles) {
+            localeBundles.clear();
+        }
+        missingLocales.clear();
+        synchronized (renderedMessages) {
+            renderedMessages.clear();
+        }
+
+        plugin.getLogger().info("Messages file has been loaded (" + loaded.fileName() + ").");
     }
 
     /**
@@ -94,6 +164,66 @@ public class MessageManager {
         }
     }
 
+    /**
+     * Returns the messages bundle of a client locale (e.g. "pl_pl"), or null to use the default language.
+     * Bundles are read on first use of a locale and then kept, so only the first message of a locale waits for the file.
+     */
+    private FileConfiguration getLocaleBundle(String locale) {
+        if (missingLocales.contains(locale)) {
+            return null;
+        }
+
+        FileConfiguration bundle;
+        synchronized (localeBundles) {
+            bundle = localeBundles.get(locale);
+        }
+        if (bundle != null) {
+            return bundle;
+        }
+
+        int loadGeneration = generation;
+        bundle = readLocaleBundle(locale);
+        if (loadGeneration == generation) {
+            if (bundle != null) {
+                synchronized (localeBundles) {
+                    localeBundles.put(locale, bundle);
+                }
+            } else {
+                if (missingLocales.size() >= MAX_MISSING_LOCALES) {
+                    missingLocales.clear();
+                }
+                missingLocales.add(locale);
+            }
+        }
+        return bundle;
+    }
+
+    /**
+     * Reads messages_<locale>.yml, falling back to messages_<language>.yml for locales with a country.
+     * Missing keys fall back to the default language. Returns null if there is no file for the locale.
+     */
+    private FileConfiguration readLocaleBundle(String locale) {
+        int separator = locale.indexOf('_');
+        String[] candidates = separator > 0
+                ? new String[]{locale, locale.substring(0, separator)}
+                : new String[]{locale};
+
+        for (String candidate : candidates) {
+            if (candidate.equals(language)) {
+                return null;
+            }
+
+            File file = new File(plugin.getDataFolder(), "messages_" + candidate + ".yml");
+            if (file.exists()) {
+                FileConfiguration bundle = YamlConfiguration.loadConfiguration(file);
+                bundle.setDefaults(messagesConfig);
+                return bundle;
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Reloads messages from the language file.
      */
@@ -105,14 +235,22 @@ public class MessageManager {
      * Gets a raw message from config without any processing.
      */
     public String getRaw(String path) {
-        return messagesConfig.getString(path, "");
+        return getRaw(messagesConfig, path);
     }
 
     /**
      * Checks if a key exists in the messages config.
      */
     public boolean hasKey(String key) {
-        return messagesConfig.contains(key) && !getRaw(key).isEmpty();
+        return hasKey(messagesConfig, key);
+    }
+
+    private static String getRaw(FileConfiguration bundle, String path) {
+        return bundle.getString(path, "");
+    }
+
+    private static boolean hasKey(FileConfiguration bundle, String key) {
+        return bundle.contains(key) && !getRaw(bundle, key).isEmpty();
     }
 
     /**
@@ -120,7 +258,7 @@ public class MessageManager {
      * Only replaces placeholders that exist as keys in the config.
      * Prevents infinite recursion by tracking already processed keys.
      */
-    private String replaceConfigPlaceholders(String message, Set<String> processedKeys) {
+    private String replaceConfigPlaceholders(FileConfiguration bundle, String message, Set<String> processedKeys) {
         if (message == null || message.isEmpty()) {
             return message;
         }
@@ -139,7 +277,7 @@ public class MessageManager {
             }
 
             // Check if this placeholder exists in config
-            if (!hasKey(placeholder)) {
+            if (!hasKey(bundle, placeholder)) {
                 // Keep original placeholder for custom placeholders like {player}, {command}
                 matcher.appendReplacement(result, Matcher.quoteReplacement(fullMatch));
                 continue;
@@ -150,8 +288,8 @@ public class MessageManager {
             newProcessedKeys.add(placeholder);
 
             // Get and recursively process the value
-            String value = getRaw(placeholder);
-            value = replaceConfigPlaceholders(value, newProcessedKeys);
+            String value = getRaw(bundle, placeholder);
+            value = replaceConfigPlaceholders(bundle, value, newProcessedKeys);
 
             matcher.appendReplacement(result, Matcher.quoteReplacement(value));
         }
@@ -164,7 +302,55 @@ public class MessageManager {
      * Gets a formatted message with config placeholders and colors.
      */
     public String get(String path) {
-        String message = getRaw(path);
+        return getCached(language, messagesConfig, path);
+    }
+
+    /**
+     * Gets a formatted message in the locale of the sender.
+     * Falls back to the default language for non-players and locales without a messages file.
+     */
+    public String get(CommandSender sender, String path) {
+        if (!perPlayerLocale || !(sender instanceof Player player)) {
+            return get(path);
+        }
+
+        String locale = player.locale().toString().toLowerCase();
+        if (locale.isEmpty() || locale.equals(language)) {
+            return get(path);
+        }
+
+        FileConfiguration bundle = getLocaleBundle(locale);
+        if (bundle == null) {
+            return get(path);
+        }
+        return getCached(locale, bundle, path);
+    }
+
+    /**
+     * Returns a rendered message from the cache, rendering it on a miss.
+     */
+    private String getCached(String locale, FileConfiguration bundle, String path) {
+        String cacheKey = locale + '\n' + path;
+        String rendered;
+        synchronized (renderedMessages) {
+            rendered = renderedMessages.get(cacheKey);
+        }
+        if (rendered != null) {
+            return rendered;
+        }
+
+        rendered = render(bundle, path);
+        synchronized (renderedMessages) {
+            renderedMessages.put(cacheKey, rendered);
+        }
+        return rendered;
+    }
+
+    /**
+     * Renders a message of a bundle with config placeholders and colors.
+     */
+    private String render(FileConfiguration bundle, String path) {
+        String message = getRaw(bundle, path);
         if (message.isEmpty()) {
             return colorize("&cMissing message: " + path);
         }
@@ -172,7 +358,7 @@ public class MessageManager {
         // Replace config placeholders (like {prefix-error}, {prefix-success}, etc.)
         Set<String> processedKeys = new HashSet<>();
         processedKeys.add(path); // Prevent self-reference
-        message = replaceConfigPlaceholders(message, processedKeys);
+        message = replaceConfigPlaceholders(bundle, message, processedKeys);
 
         return colorize(message);
     }
@@ -188,7 +374,10 @@ public class MessageManager {
      * Gets a formatted message with multiple placeholder replacements.
      */
     public String get(String path, Map<String, String> placeholders) {
-        String message = get(path);
+        return replacePlaceholders(get(path), placeholders);
+    }
+
+    private static String replacePlaceholders(String message, Map<String, String> placeholders) {
         for (Map.Entry<String, String> entry : placeholders.entrySet()) {
             message = message.replace("{" + entry.getKey() + "}", entry.getValue());
         }
@@ -208,21 +397,21 @@ public class MessageManager {
      * Sends a message to the sender.
      */
     public void send(CommandSender sender, String path) {
-        sender.sendMessage(get(path));
+        sender.sendMessage(get(sender, path));
     }
 
     /**
      * Sends a message with single placeholder replacement.
      */
     public void send(CommandSender sender, String path, String placeholder, String value) {
-        sender.sendMessage(get(path, placeholder, value));
+        sender.sendMessage(get(sender, path).replace(placeholder, value));
     }
 
     /**
      * Sends a message with multiple placeholder replacements.
      */
     public void send(CommandSender sender, String path, Map<String, String> placeholders) {
-        sender.sendMessage(get(path, placeholders));
+        sender.sendMessage(replacePlaceholders(get(sender, path), placeholders));
     }
 
     /**
@@ -280,4 +469,9 @@ public class MessageManager {
         }
         return map;
     }
-}
\ No newline at end of file
+
+    /**
+     * Messages read from disk, ready to be applied.
+     */
+    public record LoadedMessages(String language, String fileName, FileConfiguration config, int messageFiles) {}
+}
@@ -0,0 +1,72 @@
+package dev.nxms.commandblocker.manager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts filtering and blocking events for monitoring.
+ * Counters are striped, so netty threads can increment them without contention.
+ */
+public class MetricsManager {
+
+    /**
+     * Counted events, with the key shown in /commandblocker stats.
+     */
+    public enum Metric {
+        BLOCKED_COMMANDS("blocked-commands"),
+        EARLY_REJECTED_COMMANDS("early-rejected-commands"),
+        OVERSIZE_COMMANDS("oversize-commands"),
+        BLOCKED_SUGGESTION_REQUESTS("blocked-suggestion-requests"),
+        FILTERED_SUGGESTIONS("filtered-suggestions"),
+        FILTER_CACHE_HITS("filter-cache-hits"),
+        FILTER_BUDGET_TRIPS("filter-budget-trips"),
+        FILTER_FALLBACKS("filter-fallbacks"),
+        FILTER_BREAKER_OPENS("filter-breaker-opens"),
+        CANCELLED_COMMAND_TREES("cancelled-command-trees");
+
+        private final String key;
+
+        Metric(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final LongAdder[] counters;
+
+    public MetricsManager() {
+        this.counters = new LongAdder[Metric.values().length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Increments a counter by one.
+     */
+    public void increment(Metric metric) {
+        counters[metric.ordinal()].increment();
+    }
+
+    /**
+     * Returns the current value of a counter.
+     */
+    public long get(Metric metric) {
+        return counters[metric.ordinal()].sum();
+    }
+
+    /**
+     * Returns the current values of all counters.
+     */
+    public Map<Metric, Long> snapshot() {
+        Map<Metric, Long> values = new EnumMap<>(Metric.class);
+        for (Metric metric : Metric.values()) {
+            values.put(metric, get(metric));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,52 @@
+package dev.nxms.commandblocker.manager;
+
+import java.util.BitSet;
+import java.util.UUID;
+
+/**
+ * Per-player state shared between the main thread and netty threads.
+ * Every field holds a value that is never modified after publishing, updates replace it as a whole.
+ */
+public class PlayerState {
+
+    private final int entityId;
+    private final UUID uniqueId;
+
+    private volatile BypassManager.Exceptions bypassExceptions;
+    private volatile BitSet commandLabels;
+
+    PlayerState(int entityId, UUID uniqueId) {
+        this.entityId = entityId;
+        this.uniqueId = uniqueId;
+    }
+
+    public int getEntityId() {
+        return entityId;
+    }
+
+    public UUID getUniqueId() {
+        return uniqueId;
+    }
+
+    /**
+     * Returns the bypass exceptions of the player, or null if they were not computed yet.
+     */
+    public BypassManager.Exceptions getBypassExceptions() {
+        return bypassExceptions;
+    }
+
+    void setBypassExceptions(BypassManager.Exceptions bypassExceptions) {
+        this.bypassExceptions = bypassExceptions;
+    }
+
+    /**
+     * Returns the label ids of the last command tree sent to the player, or null if none is recorded.
+     */
+    BitSet getCommandLabels() {
+        return commandLabels;
+    }
+
+    void setCommandLabels(BitSet commandLabels) {
+        this.commandLabels = commandLabels;
+    }
+}
@@ -0,0 +1,129 @@
+package dev.nxms.commandblocker.manager;
+
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registry of {@link PlayerState}s keyed by entity id.
+ * Backed by a copy-on-write open-addressing table with primitive int keys, so lookups from netty threads
+ * are lock-free and allocation-free. Writes only happen on join and quit and copy the table.
+ */
+public class PlayerStateRegistry {
+
+    private volatile Table table = Table.of(List.of());
+
+    /**
+     * Returns the state of a player, or null if the player is not registered.
+     */
+    public PlayerState get(Player player) {
+        return get(player.getEntityId());
+    }
+
+    /**
+     * Returns the state registered for an entity id, or null if there is none.
+     */
+    public PlayerState get(int entityId) {
+        Table current = table;
+        int slot = mix(entityId) & current.mask;
+        PlayerState state;
+        while ((state = current.states[slot]) != null) {
+            if (current.keys[slot] == entityId) {
+                return state;
+            }
+            slot = (slot + 1) & current.mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the state of a player, registering a new one if there is none.
+     */
+    public synchronized PlayerState register(Player player) {
+        PlayerState existing = get(player.getEntityId());
+        if (existing != null && existing.getUniqueId().equals(player.getUniqueId())) {
+            return existing;
+        }
+
+        PlayerState state = new PlayerState(player.getEntityId(), player.getUniqueId());
+        List<PlayerState> states = table.states();
+        states.remove(existing);
+        states.add(state);
+        table = Table.of(states);
+        return state;
+    }
+
+    /**
+     * Removes the state of a player.
+     */
+    public synchronized void unregister(Player player) {
+        PlayerState existing = get(player.getEntityId());
+        if (existing == null) {
+            return;
+        }
+
+        List<PlayerState> states = table.states();
+        states.remove(existing);
+        table = Table.of(states);
+    }
+
+    /**
+     * Returns the number of registered players.
+     */
+    public int size() {
+        return table.size;
+    }
+
+    private static int mix(int entityId) {
+        int hash = entityId * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Immutable table, keys and states share slots and an empty slot has a null state.
+     */
+    private static final class Table {
+
+        private final int[] keys;
+        private final PlayerState[] states;
+        private final int mask;
+        private final int size;
+
+        private Table(int[] keys, PlayerState[] states, int size) {
+            this.keys = keys;
+            this.states = states;
+            this.mask = keys.length - 1;
+            this.size = size;
+        }
+
+        static Table of(List<PlayerState> entries) {
+            // Keep the load factor at or below 0.5, so probe chains stay short
+            int capacity = Integer.highestOneBit(Math.max(entries.size(), 4) * 4 - 1);
+            int[] keys = new int[capacity];
+            PlayerState[] states = new PlayerState[capacity];
+            int mask = capacity - 1;
+
+            for (PlayerState state : entries) {
+                int slot = mix(state.getEntityId()) & mask;
+                while (states[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = state.getEntityId();
+                states[slot] = state;
+            }
+
+            return new Table(keys, states, entries.size());
+        }
+
+        List<PlayerState> states() {
+            List<PlayerState> entries = new ArrayList<>(size + 1);
+            for (PlayerState state : states) {
+                if (state != null) {
+                    entries.add(state);
+                }
+            }
+            return entries;
+        }
+    }
+}
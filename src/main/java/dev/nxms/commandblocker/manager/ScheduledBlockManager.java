@@ -0,0 +1,354 @@
+package dev.nxms.commandblocker.manager;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.util.TimerWheel;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manages temporary and scheduled blocks.
+ * A rule either expires at a fixed time ("/cb add essentials:tpa 2h") or blocks a command every day
+ * within a time window ("/cb add essentials:tpa 18:00-20:00"). All transitions run on one timer wheel
+ * ticked by a single repeating task, and the changes of a tick are applied with one snapshot swap and refresh.
+ */
+public class ScheduledBlockManager {
+
+    private static final long TICK_MILLIS = 1000L;
+
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)([smhdw])");
+    private static final Pattern WINDOW_PATTERN = Pattern.compile("(\\d{1,2}):(\\d{2})-(\\d{1,2}):(\\d{2})");
+    private static final DateTimeFormatter EXPIRY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final CommandBlocker plugin;
+    private final BlockedCommandManager blockedManager;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    // State below is only touched on the main thread
+    private final Map<String, Rule> rules = new HashMap<>();
+    private final Map<String, TimerWheel.Timer<Rule>> timers = new HashMap<>();
+    private final Set<String> activeCommands = new HashSet<>();
+    private TimerWheel<Rule> wheel;
+    private BukkitTask task;
+
+    public ScheduledBlockManager(CommandBlocker plugin) {
+        this.plugin = plugin;
+        this.blockedManager = plugin.getBlockedCommandManager();
+    }
+
+    /**
+     * Loads the rules from config and starts ticking the timer wheel.
+     */
+    public void start() {
+        reload();
+        task = plugin.getServer().getScheduler().runTaskTimer(plugin, this::tick, 20L, 20L);
+    }
+
+    /**
+     * Stops ticking the timer wheel.
+     */
+    public void close() {
+        if (task != null) {
+            task.cancel();
+        }
+    }
+
+    /**
+     * Reloads the rules from config.
+     */
+    public void reload() {
+        long now = System.currentTimeMillis();
+        wheel = new TimerWheel<>(4096, TICK_MILLIS, now);
+        rules.clear();
+        timers.clear();
+        activeCommands.clear();
+
+        boolean expired = false;
+        for (String entry : plugin.getConfig().getStringList("scheduled-blocks")) {
+            Rule rule = Rule.deserialize(entry);
+            if (rule == null) {
+                plugin.getLogger().warning("Invalid scheduled block: " + entry);
+                continue;
+            }
+            if (rule.isExpired(now)) {
+                expired = true;
+                continue;
+            }
+            rules.put(rule.command(), rule);
+            arm(rule, now);
+        }
+
+        blockedManager.setScheduledCommands(activeCommands);
+        if (expired) {
+            save();
+        }
+        plugin.getLogger().info("Scheduled blocks has been loaded (" + rules.size() + ").");
+    }
+
+    /**
+     * Adds or replaces the rule of a command, the schedule is a duration (e.g. 2h, 1h30m) or a daily window
+     * (e.g. 18:00-20:00). Returns the new rule, or null if the schedule is invalid.
+     */
+    public Rule add(String command, String schedule) {
+        long now = System.currentTimeMillis();
+        Rule rule = Rule.parse(command.toLowerCase(), schedule, now);
+        if (rule == null) {
+            return null;
+        }
+
+        cancel(rule.command());
+        rules.put(rule.command(), rule);
+        arm(rule, now);
+
+        blockedManager.setScheduledCommands(activeCommands);
+        save();
+        return rule;
+    }
+
+    /**
+     * Removes the rule of a command.
+     * Returns true if there was one.
+     */
+    public boolean remove(String command) {
+        String lowerCommand = command.toLowerCase();
+        if (rules.remove(lowerCommand) == null) {
+            return false;
+        }
+
+        cancel(lowerCommand);
+        activeCommands.remove(lowerCommand);
+
+        blockedManager.setScheduledCommands(activeCommands);
+        save();
+        return true;
+    }
+
+    /**
+     * Returns all rules by command.
+     */
+    public Map<String, Rule> getRules() {
+        return Map.copyOf(rules);
+    }
+
+    /**
+     * Formats a rule for players, in the server time zone.
+     */
+    public String describe(Rule rule) {
+        if (rule.isWindow()) {
+            return "daily " + Rule.formatMinute(rule.windowStart()) + "-" + Rule.formatMinute(rule.windowEnd());
+        }
+        return "until " + EXPIRY_FORMAT.format(Instant.ofEpochMilli(rule.expiresAt()).atZone(zone));
+    }
+
+    /**
+     * Advances the timer wheel and applies all transitions that became due at once.
+     */
+    private void tick() {
+        long now = System.currentTimeMillis();
+        List<Rule> due = wheel.advance(now);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        boolean rulesChanged = false;
+        for (Rule rule : due) {
+            // Rules replaced or removed in the meantime have their own timers
+            if (rules.get(rule.command()) != rule) {
+                continue;
+            }
+            timers.remove(rule.command());
+
+            if (rule.isExpired(now)) {
+                rules.remove(rule.command());
+                activeCommands.remove(rule.command());
+                rulesChanged = true;
+            } else {
+                arm(rule, now);
+            }
+        }
+
+        blockedManager.setScheduledCommands(activeCommands);
+        if (rulesChanged) {
+            save();
+        }
+    }
+
+    /**
+     * Updates the active state of a rule and schedules its next transition.
+     */
+    private void arm(Rule rule, long now) {
+        if (rule.isWindow()) {
+            boolean active = rule.isInWindow(ZonedDateTime.ofInstant(Instant.ofEpochMilli(now), zone));
+            if (active) {
+                activeCommands.add(rule.command());
+            } else {
+                activeCommands.remove(rule.command());
+            }
+            int nextMinute = active ? rule.windowEnd() : rule.windowStart();
+            timers.put(rule.command(), wheel.schedule(rule, nextTime(nextMinute, now)));
+        } else {
+            activeCommands.add(rule.command());
+            timers.put(rule.command(), wheel.schedule(rule, rule.expiresAt()));
+        }
+    }
+
+    /**
+     * Returns the next time after now at which the local clock shows the given minute of day.
+     */
+    private long nextTime(int minuteOfDay, long now) {
+        ZonedDateTime current = ZonedDateTime.ofInstant(Instant.ofEpochMilli(now), zone);
+        LocalDateTime candidate = current.toLocalDate().atTime(minuteOfDay / 60, minuteOfDay % 60);
+        ZonedDateTime next = candidate.atZone(zone);
+        if (!next.isAfter(current)) {
+            next = candidate.plusDays(1).atZone(zone);
+        }
+        return next.toInstant().toEpochMilli();
+    }
+
+    private void cancel(String command) {
+        TimerWheel.Timer<Rule> timer = timers.remove(command);
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    /**
+     * Saves the rules to config.
+     * The file itself is written on the I/O executor.
+     */
+    private void save() {
+        List<String> entries = new ArrayList<>();
+        for (Rule rule : rules.values()) {
+            entries.add(rule.serialize());
+        }
+        entries.sort(null);
+        plugin.getConfig().set("scheduled-blocks", entries);
+        plugin.saveConfig();
+    }
+
+    /**
+     * Temporary or scheduled block of one command.
+     * Expiring rules have an expiry time, window rules a daily start and end minute (-1 otherwise).
+     */
+    public record Rule(String command, long expiresAt, int windowStart, int windowEnd) {
+
+        public boolean isWindow() {
+            return windowStart >= 0;
+        }
+
+        public boolean isExpired(long now) {
+            return !isWindow() && now >= expiresAt;
+        }
+
+        /**
+         * Checks if the local time is within the window, windows may span midnight (e.g. 22:00-06:00).
+         */
+        public boolean isInWindow(ZonedDateTime time) {
+            int minute = time.getHour() * 60 + time.getMinute();
+            if (windowStart <= windowEnd) {
+                return minute >= windowStart && minute < windowEnd;
+            }
+            return minute >= windowStart || minute < windowEnd;
+        }
+
+        /**
+         * Parses a schedule given in a command, a duration or a daily window.
+         */
+        static Rule parse(String command, String schedule, long now) {
+            Matcher window = WINDOW_PATTERN.matcher(schedule);
+            if (window.matches()) {
+                return window(command, window);
+            }
+
+            String lowerSchedule = schedule.toLowerCase();
+            Matcher duration = DURATION_PATTERN.matcher(lowerSchedule);
+            long millis = 0;
+            int end = 0;
+            try {
+                while (duration.find() && duration.start() == end) {
+                    millis = Math.addExact(millis,
+                            Math.multiplyExact(Long.parseLong(duration.group(1)), unitMillis(duration.group(2).charAt(0))));
+                    end = duration.end();
+                }
+            } catch (ArithmeticException | NumberFormatException e) {
+                return null;
+            }
+            if (end == 0 || end != lowerSchedule.length() || millis <= 0) {
+                return null;
+            }
+            return new Rule(command, now + millis, -1, -1);
+        }
+
+        /**
+         * Stored as "command until epochMillis" or "command daily HH:mm-HH:mm".
+         */
+        String serialize() {
+            if (isWindow()) {
+                return command + " daily " + formatMinute(windowStart) + "-" + formatMinute(windowEnd);
+            }
+            return command + " until " + expiresAt;
+        }
+
+        static Rule deserialize(String entry) {
+            String[] parts = entry.trim().split(" ");
+            if (parts.length != 3) {
+                return null;
+            }
+
+            String command = parts[0].toLowerCase();
+            if (parts[1].equals("daily")) {
+                Matcher window = WINDOW_PATTERN.matcher(parts[2]);
+                return window.matches() ? window(command, window) : null;
+            }
+            if (parts[1].equals("until")) {
+                try {
+                    return new Rule(command, Long.parseLong(parts[2]), -1, -1);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+            return null;
+        }
+
+        private static Rule window(String command, Matcher window) {
+            int start = minuteOfDay(window.group(1), window.group(2));
+            int end = minuteOfDay(window.group(3), window.group(4));
+            if (start < 0 || end < 0 || start == end) {
+                return null;
+            }
+            return new Rule(command, 0, start, end);
+        }
+
+        private static int minuteOfDay(String hours, String minutes) {
+            int hour = Integer.parseInt(hours);
+            int minute = Integer.parseInt(minutes);
+            return hour < 24 && minute < 60 ? hour * 60 + minute : -1;
+        }
+
+        static String formatMinute(int minuteOfDay) {
+            return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+        }
+
+        private static long unitMillis(char unit) {
+            return switch (unit) {
+                case 's' -> 1000L;
+                case 'm' -> 60_000L;
+                case 'h' -> 3_600_000L;
+                case 'd' -> 86_400_000L;
+                default -> 604_800_000L;
+            };
+        }
+    }
+}
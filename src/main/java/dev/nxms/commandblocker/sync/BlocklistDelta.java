@@ -0,0 +1,55 @@
+package dev.nxms.commandblocker.sync;
+
+/**
+ * A single blocklist change published by one server.
+ * Sequence numbers are per node, the Lamport clock orders changes across nodes.
+ */
+public record BlocklistDelta(String nodeId, long sequence, long clock, boolean blocked, String command) {
+
+    private static final String SEPARATOR = "\t";
+
+    /**
+     * Checks if this change wins over a previous change of the same command.
+     * Ties on the clock are broken by node id, so every node picks the same winner.
+     */
+    public boolean isNewerThan(long otherClock, String otherNodeId) {
+        if (clock != otherClock) {
+            return clock > otherClock;
+        }
+        return nodeId.compareTo(otherNodeId) > 0;
+    }
+
+    /**
+     * Serializes this delta to a single line.
+     */
+    public String serialize() {
+        return nodeId + SEPARATOR + sequence + SEPARATOR + clock + SEPARATOR
+                + (blocked ? "ADD" : "REMOVE") + SEPARATOR + command;
+    }
+
+    /**
+     * Parses a line written by {@link #serialize()}.
+     * Returns null for malformed lines.
+     */
+    public static BlocklistDelta parse(String line) {
+        String[] parts = line.split(SEPARATOR);
+        if (parts.length != 5 || parts[0].isEmpty() || parts[4].isEmpty()) {
+            return null;
+        }
+
+        try {
+            boolean blocked;
+            switch (parts[3]) {
+                case "ADD" -> blocked = true;
+                case "REMOVE" -> blocked = false;
+                default -> {
+                    return null;
+                }
+            }
+            return new BlocklistDelta(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                    blocked, parts[4].toLowerCase());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
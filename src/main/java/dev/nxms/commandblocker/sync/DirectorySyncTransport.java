@@ -0,0 +1,185 @@
+package dev.nxms.commandblocker.sync;
+
+import dev.nxms.commandblocker.CommandBlocker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Synchronizes through a directory shared by all nodes (local disk, NFS, SMB...).
+ * Every node appends its deltas to its own "node-id.log" file and tails the files of the others.
+ * File system events wake the reader immediately, polling covers file systems without them.
+ * Read positions are not persisted and logs are never compacted, so every start replays all logs from the beginning
+ * and relies on the version vector to skip deltas that were already applied.
+ */
+public class DirectorySyncTransport implements SyncTransport {
+
+    private static final String LOG_SUFFIX = ".log";
+
+    private final CommandBlocker plugin;
+    private final Path directory;
+    private final String nodeId;
+    private final long pollIntervalMillis;
+
+    // Read positions of the other nodes' logs, only touched by the reader thread
+    private final Map<Path, Long> offsets = new HashMap<>();
+
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread reader;
+
+    public DirectorySyncTransport(CommandBlocker plugin, Path directory, String nodeId, long pollIntervalMillis) {
+        this.plugin = plugin;
+        this.directory = directory;
+        this.nodeId = nodeId;
+        this.pollIntervalMillis = Math.max(pollIntervalMillis, 10);
+    }
+
+    @Override
+    public void start(Consumer<List<BlocklistDelta>> receiver) throws IOException {
+        Files.createDirectories(directory);
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        running = true;
+        reader = Thread.ofVirtual().name("CommandBlocker-Sync").start(() -> readLoop(receiver));
+    }
+
+    @Override
+    public List<BlocklistDelta> readPublished() throws IOException {
+        Path log = directory.resolve(nodeId + LOG_SUFFIX);
+        List<BlocklistDelta> deltas = new ArrayList<>();
+        if (!Files.exists(log)) {
+            return deltas;
+        }
+
+        for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+            BlocklistDelta delta = BlocklistDelta.parse(line.trim());
+            if (delta != null) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+
+    @Override
+    public void publish(BlocklistDelta delta) {
+        plugin.getIoExecutor().append(directory.resolve(nodeId + LOG_SUFFIX).toFile(), delta.serialize() + "\n");
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+            if (reader != null) {
+                reader.join(TimeUnit.SECONDS.toMillis(1));
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to close sync watcher: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads all logs once, then again whenever the directory changes or the poll interval passes.
+     */
+    private void readLoop(Consumer<List<BlocklistDelta>> receiver) {
+        while (running) {
+            try {
+                List<BlocklistDelta> deltas = readNewDeltas();
+                if (!deltas.isEmpty()) {
+                    receiver.accept(deltas);
+                }
+
+                WatchKey key = watchService.poll(pollIntervalMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                plugin.getLogger().warning("Failed to read sync logs: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads complete lines appended to the other nodes' logs since the last read.
+     */
+    private List<BlocklistDelta> readNewDeltas() throws IOException {
+        List<BlocklistDelta> deltas = new ArrayList<>();
+
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(directory, "*" + LOG_SUFFIX)) {
+            for (Path log : logs) {
+                if (log.getFileName().toString().equals(nodeId + LOG_SUFFIX)) {
+                    continue;
+                }
+                readLog(log, deltas);
+            }
+        }
+
+        return deltas;
+    }
+
+    private void readLog(Path log, List<BlocklistDelta> deltas) throws IOException {
+        long offset = offsets.getOrDefault(log, 0L);
+
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset) {
+                // Log was truncated or replaced, read it again, already applied deltas are skipped by version
+                offset = 0;
+            }
+            if (size == offset) {
+                return;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - offset, Integer.MAX_VALUE - 8));
+            channel.read(buffer, offset);
+            buffer.flip();
+
+            // Only consume complete lines, a partial line is still being written
+            int lastNewline = -1;
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    lastNewline = i;
+                    break;
+                }
+            }
+            if (lastNewline < 0) {
+                return;
+            }
+
+            String text = new String(buffer.array(), 0, lastNewline, StandardCharsets.UTF_8);
+            for (String line : text.split("\n")) {
+                BlocklistDelta delta = BlocklistDelta.parse(line.trim());
+                if (delta != null) {
+                    deltas.add(delta);
+                }
+            }
+
+            offsets.put(log, offset + lastNewline + 1);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package dev.nxms.commandblocker.sync;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the blocklist of several servers in sync.
+ * Local changes are published as versioned deltas, remote deltas are applied incrementally.
+ * A version vector (highest sequence seen per node) skips already applied deltas, so catching up never needs a full resync.
+ * Concurrent changes of the same command are resolved last-writer-wins by Lamport clock.
+ */
+public class SyncManager {
+
+    private static final String STATE_FILE = "sync-state.yml";
+
+    private final CommandBlocker plugin;
+    private final SyncTransport transport;
+    private final String nodeId;
+
+    // State below is only touched on the main thread
+    private long sequence;
+    private long clock;
+    private final Map<String, Long> versionVector = new HashMap<>();
+    private final Map<String, Stamp> stamps = new HashMap<>();
+
+    private SyncManager(CommandBlocker plugin, SyncTransport transport, String nodeId) {
+        this.plugin = plugin;
+        this.transport = transport;
+        this.nodeId = nodeId;
+    }
+
+    /**
+     * Creates the sync manager from the "sync" config section.
+     * Returns null if syncing is disabled.
+     */
+    public static SyncManager fromConfig(CommandBlocker plugin) {
+        ConfigurationSection section = plugin.getConfig().getConfigurationSection("sync");
+        if (section == null || !section.getBoolean("enabled", false)) {
+            return null;
+        }
+
+        YamlConfiguration state = YamlConfiguration.loadConfiguration(new File(plugin.getDataFolder(), STATE_FILE));
+
+        // Node id from config, otherwise a generated one that survives restarts
+        String nodeId = section.getString("node-id", "");
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = state.getString("node-id", UUID.randomUUID().toString());
+        }
+        nodeId = nodeId.trim().replaceAll("[^A-Za-z0-9_.-]", "_");
+
+        String transportName = section.getString("transport", "directory").toLowerCase();
+        if (!transportName.equals("directory")) {
+            plugin.getLogger().warning("Unknown sync transport " + transportName + "! Using directory.");
+        }
+
+        Path directory = plugin.getDataFolder().toPath().resolve(section.getString("directory", "sync"));
+        SyncTransport transport = new DirectorySyncTransport(
+                plugin, directory.normalize(), nodeId, section.getLong("poll-interval-ms", 250));
+
+        SyncManager manager = new SyncManager(plugin, transport, nodeId);
+        manager.loadState(state);
+        return manager;
+    }
+
+    /**
+     * Starts receiving remote deltas.
+     */
+    public void start() {
+        recoverPublished();
+
+        // Persist a generated node id right away, so it stays the same after a restart
+        saveState();
+
+        try {
+            transport.start(deltas -> plugin.getIoExecutor().mainThread().execute(() -> apply(deltas)));
+            plugin.getLogger().info("Blocklist sync has been started (node " + nodeId + ").");
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to start blocklist sync: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops receiving remote deltas.
+     */
+    public void close() {
+        transport.close();
+    }
+
+    /**
+     * Publishes a local blocklist change.
+     */
+    public void publish(String command, boolean blocked) {
+        sequence++;
+        clock++;
+        versionVector.put(nodeId, sequence);
+        stamps.put(command, new Stamp(clock, nodeId));
+
+        transport.publish(new BlocklistDelta(nodeId, sequence, clock, blocked, command));
+        saveState();
+    }
+
+    /**
+     * Applies a batch of remote deltas.
+     * Only deltas newer than the version vector and newer than the last change of their command take effect.
+     */
+    private void apply(List<BlocklistDelta> deltas) {
+        Map<String, Boolean> changes = new LinkedHashMap<>();
+        boolean advanced = false;
+
+        for (BlocklistDelta delta : deltas) {
+            if (delta.nodeId().equals(nodeId)) {
+                continue;
+            }
+            if (delta.sequence() <= versionVector.getOrDefault(delta.nodeId(), 0L)) {
+                continue;
+            }
+
+            versionVector.put(delta.nodeId(), delta.sequence());
+            advanced = true;
+            clock = Math.max(clock, delta.clock());
+
+            Stamp stamp = stamps.get(delta.command());
+            if (stamp != null && !delta.isNewerThan(stamp.clock(), stamp.nodeId())) {
+                continue;
+            }
+
+            stamps.put(delta.command(), new Stamp(delta.clock(), delta.nodeId()));
+            changes.put(delta.command(), delta.blocked());
+        }
+
+        if (!changes.isEmpty()) {
+            plugin.getBlockedCommandManager().applyRemoteChanges(changes);
+        }
+        if (advanced) {
+            saveState();
+        }
+    }
+
+    /**
+     * Raises the sequence, clock and stamps to the deltas this node already published.
+     * The state file is written asynchronously and may lag behind the log after a crash, reusing a sequence
+     * would make other nodes skip the new delta as already seen.
+     */
+    private void recoverPublished() {
+        List<BlocklistDelta> published;
+        try {
+            published = transport.readPublished();
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to read published sync deltas: " + e.getMessage());
+            return;
+        }
+
+        for (BlocklistDelta delta : published) {
+            if (!delta.nodeId().equals(nodeId)) {
+                continue;
+            }
+            sequence = Math.max(sequence, delta.sequence());
+            clock = Math.max(clock, delta.clock());
+
+            Stamp stamp = stamps.get(delta.command());
+            if (stamp == null || delta.isNewerThan(stamp.clock(), stamp.nodeId())) {
+                stamps.put(delta.command(), new Stamp(delta.clock(), delta.nodeId()));
+            }
+        }
+        if (sequence > 0) {
+            versionVector.put(nodeId, sequence);
+        }
+    }
+
+    /**
+     * Restores the version vector and command stamps.
+     */
+    private void loadState(YamlConfiguration state) {
+        sequence = state.getLong("sequence", 0);
+        clock = state.getLong("clock", 0);
+
+        // Stored as lists, node ids and commands may contain the config path separator
+        for (String entry : state.getStringList("versions")) {
+            String[] parts = entry.split(" ", 2);
+            if (parts.length == 2) {
+                versionVector.put(parts[1], parseLong(parts[0]));
+            }
+        }
+        for (String entry : state.getStringList("stamps")) {
+            String[] parts = entry.split(" ", 3);
+            if (parts.length == 3) {
+                stamps.put(parts[2], new Stamp(parseLong(parts[0]), parts[1]));
+            }
+        }
+    }
+
+    /**
+     * Saves the version vector and command stamps on the I/O executor.
+     */
+    private void saveState() {
+        YamlConfiguration state = new YamlConfiguration();
+        state.set("node-id", nodeId);
+        state.set("sequence", sequence);
+        state.set("clock", clock);
+
+        List<String> versions = new ArrayList<>();
+        versionVector.forEach((node, version) -> versions.add(version + " " + node));
+        state.set("versions", versions);
+
+        List<String> stampList = new ArrayList<>();
+        stamps.forEach((command, stamp) -> stampList.add(stamp.clock() + " " + stamp.nodeId() + " " + command));
+        state.set("stamps", stampList);
+
+        plugin.getIoExecutor().write(new File(plugin.getDataFolder(), STATE_FILE), state.saveToString());
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Lamport clock and node of the last applied change of a command.
+     */
+    private record Stamp(long clock, String nodeId) {}
+}
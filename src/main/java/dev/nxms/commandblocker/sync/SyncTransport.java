@@ -0,0 +1,34 @@
+package dev.nxms.commandblocker.sync;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries blocklist deltas between servers.
+ * Implementations deliver deltas of each node in publish order, possibly repeating already seen ones.
+ */
+public interface SyncTransport {
+
+    /**
+     * Starts receiving deltas from other nodes.
+     * The receiver is called off the main thread, with deltas in publish order per node.
+     * Deltas still available from before the start are delivered first, so a node can catch up.
+     */
+    void start(Consumer<List<BlocklistDelta>> receiver) throws Exception;
+
+    /**
+     * Reads the deltas this node published before, in publish order.
+     * Called on the main thread before {@link #start(Consumer)}.
+     */
+    List<BlocklistDelta> readPublished() throws Exception;
+
+    /**
+     * Publishes a delta of this node.
+     */
+    void publish(BlocklistDelta delta);
+
+    /**
+     * Stops receiving and releases all resources.
+     */
+    void close();
+}
@@ -0,0 +1,181 @@
+package dev.nxms.commandblocker.util;
+
+import dev.nxms.commandblocker.CommandBlocker;
+import dev.nxms.commandblocker.jfr.ConfigPersistEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking plugin I/O on virtual threads.
+ * Results are handed back to the main thread through {@link #mainThread()}.
+ */
+public class IoExecutor {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    private final CommandBlocker plugin;
+    private final ExecutorService executor;
+    private final Executor mainThread;
+
+    // Tail of the write chain, keeps file writes in submission order
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    public IoExecutor(CommandBlocker plugin) {
+        this.plugin = plugin;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("CommandBlocker-IO-", 0).factory());
+        this.mainThread = task -> {
+            if (plugin.getServer().isPrimaryThread()) {
+                task.run();
+            } else {
+                plugin.getServer().getScheduler().runTask(plugin, task);
+            }
+        };
+    }
+
+    /**
+     * Runs a blocking task on a virtual thread.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+
+    /**
+     * Runs a blocking task on a virtual thread once all writes submitted so far have finished.
+     * Used for reads that must see earlier writes, e.g. reloading the config after a save.
+     */
+    public synchronized <T> CompletableFuture<T> supplyAfterWrites(Supplier<T> task) {
+        return lastWrite
+                .exceptionally(error -> null)
+                .thenApplyAsync(ignored -> task.get(), executor);
+    }
+
+    /**
+     * Writes text to a file on a virtual thread.
+     * Writes are applied in submission order and replace the file atomically where supported.
+     */
+    public CompletableFuture<Void> write(File file, String contents) {
+        return enqueueWrite(file, contents, false);
+    }
+
+    /**
+     * Appends text to a file on a virtual thread, creating it if needed.
+     * Appends share the ordering of {@link #write(File, String)}.
+     */
+    public CompletableFuture<Void> append(File file, String contents) {
+        return enqueueWrite(file, contents, true);
+    }
+
+    private synchronized CompletableFuture<Void> enqueueWrite(File file, String contents, boolean append) {
+        lastWrite = lastWrite
+                .exceptionally(error -> null)
+                .thenRunAsync(() -> persist(file.toPath(), contents, append), executor);
+        lastWrite.exceptionally(error -> {
+            plugin.getLogger().warning("Failed to write " + file.getName() + ": " + error.getMessage());
+            return null;
+        });
+        return lastWrite;
+    }
+
+    /**
+     * Executor running tasks on the server main thread.
+     */
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Waits for queued writes, then stops accepting tasks and waits for the remaining I/O to finish.
+     * Writes are chained, so the executor may only be shut down once the last one has started.
+     */
+    public void shutdown() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        CompletableFuture<Void> pendingWrites;
+        synchronized (this) {
+            pendingWrites = lastWrite;
+        }
+
+        try {
+            pendingWrites.get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            // Already logged by the write itself
+        } catch (TimeoutException e) {
+            plugin.getLogger().warning("Pending writes did not finish in time, some changes may be lost.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        executor.shutdown();
+        try {
+            long remaining = Math.max(deadline - System.nanoTime(), 0);
+            if (!executor.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                plugin.getLogger().warning("Pending I/O did not finish in time, some changes may be lost.");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes or appends a file, recorded as a JFR event.
+     */
+    private static void persist(Path target, String contents, boolean append) {
+        ConfigPersistEvent event = new ConfigPersistEvent();
+        event.begin();
+
+        if (append) {
+            appendFile(target, contents);
+        } else {
+            writeFile(target, contents);
+        }
+
+        if (event.shouldCommit()) {
+            event.file = target.getFileName().toString();
+            event.bytes = contents.getBytes(StandardCharsets.UTF_8).length;
+            event.append = append;
+            event.commit();
+        }
+    }
+
+    private static void writeFile(Path target, String contents) {
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.writeString(temp, contents, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void appendFile(Path target, String contents) {
+        try {
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, contents, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package dev.nxms.commandblocker.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel driven by wall clock time.
+ * Timers are put into the bucket of their deadline tick, so scheduling is O(1) and a tick only visits one bucket.
+ * Timers further away than one rotation stay in their bucket until their tick comes around.
+ * Not thread-safe, meant to be used from a single thread.
+ */
+public class TimerWheel<T> {
+
+    private final ArrayDeque<Timer<T>>[] buckets;
+    private final int mask;
+    private final long tickMillis;
+    private final long startMillis;
+
+    // Last tick whose bucket has been processed
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(int bucketCount, long tickMillis, long nowMillis) {
+        int capacity = Integer.highestOneBit(Math.max(bucketCount, 2) * 2 - 1);
+        this.buckets = new ArrayDeque[capacity];
+        for (int i = 0; i < capacity; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.mask = capacity - 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = nowMillis;
+    }
+
+    /**
+     * Schedules a task for the given wall clock time.
+     * Deadlines in the past fire on the next tick.
+     */
+    public Timer<T> schedule(T task, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis);
+        Timer<T> timer = new Timer<>(task, Math.max(deadlineTick, currentTick + 1));
+        buckets[(int) (timer.tick & mask)].add(timer);
+        return timer;
+    }
+
+    /**
+     * Advances the wheel to the given wall clock time and returns the tasks that became due.
+     */
+    public List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<T> due = new ArrayList<>();
+
+        // After a long pause visiting every bucket once is enough
+        if (targetTick - currentTick > buckets.length) {
+            for (ArrayDeque<Timer<T>> bucket : buckets) {
+                collect(bucket, targetTick, due);
+            }
+            currentTick = targetTick;
+            return due;
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            collect(buckets[(int) (currentTick & mask)], currentTick, due);
+        }
+        return due;
+    }
+
+    /**
+     * Removes cancelled timers and moves timers due at or before the tick into the result.
+     */
+    private void collect(ArrayDeque<Timer<T>> bucket, long tick, List<T> due) {
+        Iterator<Timer<T>> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timer<T> timer = iterator.next();
+            if (timer.cancelled) {
+                iterator.remove();
+            } else if (timer.tick <= tick) {
+                iterator.remove();
+                due.add(timer.task);
+            }
+        }
+    }
+
+    /**
+     * Scheduled task, cancelled timers are dropped lazily when their bucket is visited.
+     */
+    public static final class Timer<T> {
+
+        private final T task;
+        private final long tick;
+        private boolean cancelled;
+
+        private Timer(T task, long tick) {
+            this.task = task;
+            this.tick = tick;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package dev.nxms.commandblocker.loadtest;
+
+import com.github.retrooper.packetevents.protocol.chat.Node;
+import dev.nxms.commandblocker.listener.BudgetedTreeFilter;
+import dev.nxms.commandblocker.listener.FilterBudget;
+import dev.nxms.commandblocker.listener.FilteredTreeCache;
+import dev.nxms.commandblocker.manager.LabelIndex;
+import dev.nxms.commandblocker.manager.MetricsManager;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Headless load test of the packet filtering hot paths, run with "mvn -P loadtest test".
+ * Synthetic players replay generated DECLARE_COMMANDS trees and command spam across many threads, through the
+ * same budgeted tree filter and label index the packet listener uses. Each scenario reports throughput,
+ * p50/p99 latency and allocation rate, plus the cache hits and fallbacks of the tree filter. Sizes are set with system properties, e.g. -Dloadtest.players=20000.
+ */
+public final class LoadTestHarness {
+
+    private static final int PLAYERS = Integer.getInteger("loadtest.players", 5000);
+    private static final int THREADS = Integer.getInteger("loadtest.threads", Runtime.getRuntime().availableProcessors());
+    private static final int COMMANDS = Integer.getInteger("loadtest.commands", 1500);
+    private static final int GROUPS = Integer.getInteger("loadtest.groups", 8);
+    private static final int BLOCKED = Integer.getInteger("loadtest.blocked", 200);
+    private static final int SPAM_PER_PLAYER = Integer.getInteger("loadtest.spam", 100);
+    private static final int ROUNDS = Integer.getInteger("loadtest.rounds", 3);
+
+    private static final long BLOCKLIST_CHANGE_MILLIS = 50;
+
+    private final Random random = new Random(42);
+
+    // One tree per permission group, players of a group receive equal trees like on a real server
+    private final List<List<Node>> trees = new ArrayList<>();
+    private final String[] commandLines;
+
+    private volatile Blocklist blocklist;
+    private final Logger logger = Logger.getLogger("loadtest");
+    private volatile BudgetedTreeFilter treeFilter;
+    private volatile MetricsManager metrics;
+
+    private LoadTestHarness() {
+        for (int group = 0; group < GROUPS; group++) {
+            trees.add(buildTree(group));
+        }
+        blocklist = buildBlocklist(0, 1);
+        commandLines = buildCommandLines(4096);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadTestHarness harness = new LoadTestHarness();
+        System.out.printf("players=%d threads=%d commands=%d groups=%d blocked=%d tree-nodes=%d%n",
+                PLAYERS, THREADS, COMMANDS, GROUPS, BLOCKED, harness.trees.getLast().size());
+
+        // The first round only warms up the JIT
+        for (int round = 0; round <= ROUNDS; round++) {
+            boolean report = round > 0;
+            if (report) {
+                System.out.println("Round " + round + ":");
+            }
+            harness.joinStorm(report);
+            harness.blocklistChange(report);
+            harness.spamBot(report);
+            harness.overBudget(report);
+        }
+    }
+
+    /**
+     * All players join at once, each distinct tree is filtered once and then served from the cache.
+     */
+    private void joinStorm(boolean report) throws InterruptedException {
+        reset(FilterBudget.fromConfig(null));
+        run("join-storm", PLAYERS, player -> filterTree(trees.get(player % GROUPS)), null, report);
+    }
+
+    /**
+     * Players keep receiving trees while the blocklist changes, so cached trees keep getting invalidated.
+     */
+    private void blocklistChange(boolean report) throws InterruptedException {
+        reset(FilterBudget.fromConfig(null));
+        Runnable changer = () -> {
+            Blocklist current = blocklist;
+            blocklist = buildBlocklist(current.version() * 7, current.version() + 1);
+        };
+        run("blocklist-change", PLAYERS * 4,
+                player -> filterTree(trees.get(player % GROUPS)), changer, report);
+    }
+
+    /**
+     * Spam bots sending command packets, each checked against the label index like the early packet check.
+     * Command packets carry the line without the typed slash, so the label is read from the first character.
+     */
+    private void spamBot(boolean report) throws InterruptedException {
+        reset(FilterBudget.fromConfig(null));
+        run("spam-bot", PLAYERS * SPAM_PER_PLAYER, index -> {
+            String line = commandLines[index & (commandLines.length - 1)];
+            return blocklist.labels().contains(line, 0, LabelIndex.labelEnd(line, 0)) ? 1 : 0;
+        }, null, report);
+    }
+
+    /**
+     * Trees larger than the node budget, every player gets the pruned fallback tree.
+     */
+    private void overBudget(boolean report) throws InterruptedException {
+        reset(new FilterBudget(1, 5_000_000L, 3, 30_000_000_000L));
+        run("over-budget", PLAYERS, player -> filterTree(trees.get(player % GROUPS)), null, report);
+    }
+
+    /**
+     * Starts a scenario with an empty cache, fresh counters and the given budget.
+     */
+    private void reset(FilterBudget budget) {
+        metrics = new MetricsManager();
+        treeFilter = new BudgetedTreeFilter((label, exceptions) -> blocklist.labels().contains(label),
+                () -> blocklist.version(), () -> budget, new FilteredTreeCache(64), metrics, logger);
+    }
+
+    /**
+     * Filters a tree for a player without bypass exceptions, through the same pipeline as the packet listener.
+     */
+    private long filterTree(List<Node> nodes) {
+        return treeFilter.filter(nodes, 0, null).nodes().size();
+    }
+
+    /**
+     * Runs a scenario on all threads and prints its numbers.
+     * Threads take operation indices from a shared counter, the background task runs periodically meanwhile.
+     */
+    private void run(String name, int operations, Operation operation, Runnable background, boolean report)
+            throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Worker[] workers = new Worker[THREADS];
+        for (int i = 0; i < THREADS; i++) {
+            workers[i] = new Worker(operation, next, operations, start);
+            workers[i].start();
+        }
+
+        AtomicBoolean finished = new AtomicBoolean();
+        Thread backgroundThread = null;
+        if (background != null) {
+            backgroundThread = Thread.ofPlatform().name("loadtest-background").start(() -> {
+                while (!finished.get()) {
+                    background.run();
+                    try {
+                        Thread.sleep(BLOCKLIST_CHANGE_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Worker worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        finished.set(true);
+        if (backgroundThread != null) {
+            backgroundThread.interrupt();
+            backgroundThread.join();
+        }
+
+        if (report) {
+            report(name, workers, elapsed);
+            System.out.printf("  %-17s cache hits %d, budget trips %d, fallbacks %d%n", "",
+                    metrics.get(MetricsManager.Metric.FILTER_CACHE_HITS),
+                    metrics.get(MetricsManager.Metric.FILTER_BUDGET_TRIPS),
+                    metrics.get(MetricsManager.Metric.FILTER_FALLBACKS));
+        }
+    }
+
+    private static void report(String name, Worker[] workers, long elapsedNanos) {
+        int count = 0;
+        long allocated = 0;
+        for (Worker worker : workers) {
+            count += worker.count;
+            allocated += worker.allocatedBytes;
+        }
+
+        long[] latencies = new long[count];
+        int offset = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+        }
+        Arrays.sort(latencies);
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("  %-17s %10d ops %12.0f ops/s  p50 %9.2f us  p99 %9.2f us  %9.1f MB/s %9.1f B/op%n",
+                name, count, count / seconds,
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.99) / 1e3,
+                allocated / seconds / (1024 * 1024), count > 0 ? (double) allocated / count : 0);
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min((int) (sorted.length * fraction), sorted.length - 1)];
+    }
+
+    /**
+     * Builds the tree of a permission group, higher groups see more commands.
+     * Every command has a namespaced and a plain literal, two subcommands and a redirect back to itself.
+     */
+    private List<Node> buildTree(int group) {
+        List<Node> nodes = new ArrayList<>();
+        List<Integer> rootChildren = new ArrayList<>();
+        nodes.add(null);
+
+        for (int command = 0; command < COMMANDS; command++) {
+            if (command % GROUPS > group) {
+                continue;
+            }
+            for (String label : List.of(namespacedLabel(command), plainLabel(command))) {
+                int commandIndex = nodes.size();
+                rootChildren.add(commandIndex);
+                nodes.add(null);
+
+                int listIndex = nodes.size();
+                nodes.add(new Node(Node.TYPE_LITERAL, new ArrayList<>(), 0, "list", null, null, null));
+                int aliasIndex = nodes.size();
+                nodes.add(new Node((byte) (Node.TYPE_LITERAL | Node.FLAG_REDIRECT), new ArrayList<>(),
+                        commandIndex, "alias", null, null, null));
+
+                nodes.set(commandIndex, new Node((byte) (Node.TYPE_LITERAL | Node.FLAG_EXECUTABLE),
+                        new ArrayList<>(List.of(listIndex, aliasIndex)), 0, label, null, null, null));
+            }
+        }
+
+        nodes.set(0, new Node(Node.TYPE_ROOT, rootChildren, 0, null, null, null, null));
+        return nodes;
+    }
+
+    /**
+     * Blocks a window of commands starting at offset, by both labels like the real blocklist.
+     */
+    private static Blocklist buildBlocklist(int offset, int version) {
+        Set<String> labels = new HashSet<>();
+        for (int i = 0; i < BLOCKED; i++) {
+            int command = Math.floorMod(offset + i * 3, COMMANDS);
+            labels.add(namespacedLabel(command));
+            labels.add(plainLabel(command));
+        }
+        return new Blocklist(LabelIndex.of(labels), version);
+    }
+
+    /**
+     * Mix of blocked and allowed command lines, with and without namespace, arguments and upper case.
+     * The length is a power of two, so operations index it with a mask.
+     */
+    private String[] buildCommandLines(int count) {
+        String[] lines = new String[count];
+        for (int i = 0; i < count; i++) {
+            int command = random.nextInt(COMMANDS);
+            String label = random.nextBoolean() ? namespacedLabel(command) : plainLabel(command);
+            if (random.nextInt(4) == 0) {
+                label = label.toUpperCase();
+            }
+            lines[i] = random.nextBoolean() ? label + " player" + random.nextInt(PLAYERS) + " hello" : label;
+        }
+        return lines;
+    }
+
+    private static String namespacedLabel(int command) {
+        return "plugin" + (command % 16) + ":command" + command;
+    }
+
+    private static String plainLabel(int command) {
+        return "command" + command;
+    }
+
+    /**
+     * One operation of a scenario, returns a value that is summed up so the work is not optimized away.
+     */
+    @FunctionalInterface
+    private interface Operation {
+        long run(int index);
+    }
+
+    private record Blocklist(LabelIndex labels, int version) {}
+
+    /**
+     * Runs operations until the shared counter reaches the total, recording the latency of each.
+     * Allocations are measured for the whole thread, the latency array is allocated up front.
+     */
+    private static final class Worker extends Thread {
+
+        private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        private final Operation operation;
+        private final AtomicInteger next;
+        private final int total;
+        private final CountDownLatch start;
+        private final long[] latencies;
+
+        private int count;
+        private long allocatedBytes;
+        private long sink;
+
+        Worker(Operation operation, AtomicInteger next, int total, CountDownLatch start) {
+            super("loadtest-worker");
+            this.operation = operation;
+            this.next = next;
+            this.total = total;
+            this.start = start;
+            this.latencies = new long[total];
+        }
+
+        @Override
+        public void run() {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long allocatedBefore = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+            int index;
+            while ((index = next.getAndIncrement()) < total) {
+                long begin = System.nanoTime();
+                sink += operation.run(index);
+                latencies[count++] = System.nanoTime() - begin;
+            }
+            allocatedBytes = THREAD_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+            if (sink == Long.MIN_VALUE) {
+                System.out.println(sink);
+            }
+        }
+    }
+}